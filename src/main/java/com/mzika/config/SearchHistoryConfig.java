@@ -0,0 +1,31 @@
+package com.mzika.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class SearchHistoryConfig {
+
+    @Value("${search-history.writer.flush-threads:1}")
+    private int flushThreads;
+
+    /**
+     * Runs the search history batch flushes triggered by a full batch. One pending
+     * flush is enough: a rejected one is covered by the flush already queued or
+     * running, and the scheduled flush picks up anything left.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor searchHistoryFlushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(flushThreads);
+        executor.setMaxPoolSize(flushThreads);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("search-history-flush-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+}
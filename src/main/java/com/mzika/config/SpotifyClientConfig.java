@@ -0,0 +1,155 @@
+package com.mzika.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared outbound client for api.spotify.com and accounts.spotify.com.
+ * One JDK HttpClient keeps pooled keep-alive connections (multiplexed over HTTP/2
+ * where Spotify negotiates it), so requests stop paying a TCP/TLS handshake each.
+ * How long idle connections stay pooled is JVM-wide ({@code jdk.httpclient.keepalive.timeout})
+ * and is set on the command line by the Docker image.
+ */
+@Configuration
+@Slf4j
+public class SpotifyClientConfig {
+
+    @Value("${spotify.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${spotify.http.read-timeout:5s}")
+    private Duration readTimeout;
+
+    @Value("${spotify.http.executor-threads:16}")
+    private int executorThreads;
+
+    @Value("${spotify.tasks.max-threads:64}")
+    private int taskThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${spotify.rate-limit.permits-per-second:20}")
+    private double permitsPerSecond;
+
+    @Value("${spotify.rate-limit.burst:40}")
+    private int burst;
+
+    @Value("${spotify.rate-limit.initial-concurrency:16}")
+    private int initialConcurrency;
+
+    @Value("${spotify.rate-limit.min-concurrency:2}")
+    private int minConcurrency;
+
+    @Value("${spotify.rate-limit.max-concurrency:64}")
+    private int maxConcurrency;
+
+    @Value("${spotify.rate-limit.max-wait:2s}")
+    private Duration maxWait;
+
+    @Value("${spotify.rate-limit.max-attempts:2}")
+    private int maxAttempts;
+
+    @Bean
+    public Executor spotifyHttpExecutor(MeterRegistry meterRegistry) {
+        if (virtualThreadsAvailable()) {
+            log.info("Spotify HTTP client running on virtual threads");
+            return new VirtualThreadTaskExecutor("spotify-http-");
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                executorThreads, executorThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "spotify-http-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "spotify.http.client");
+    }
+
+    @Bean
+    public HttpClient spotifyHttpClient(@Qualifier("spotifyHttpExecutor") Executor spotifyHttpExecutor) {
+        log.info("Spotify HTTP client: connectTimeout={}, readTimeout={}, keepAlive={}s",
+                connectTimeout, readTimeout, System.getProperty("jdk.httpclient.keepalive.timeout", "1200"));
+
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(spotifyHttpExecutor)
+                .build();
+    }
+
+    /**
+     * Runs Spotify calls that a request fans out in parallel. Without a queue, a
+     * saturated pool makes the request thread run the call itself instead of
+     * deadlocking on its own subtasks.
+     */
+    @Bean
+    public AsyncTaskExecutor spotifyTaskExecutor() {
+        if (virtualThreadsAvailable()) {
+            return new VirtualThreadTaskExecutor("spotify-task-");
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.min(8, taskThreads));
+        executor.setMaxPoolSize(taskThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("spotify-task-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    @Bean
+    public RestTemplate spotifyRestTemplate(HttpClient spotifyHttpClient, MeterRegistry meterRegistry) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(spotifyHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // Admission control first, so the metrics below see each attempt separately
+        restTemplate.getInterceptors().add(new SpotifyRateLimitInterceptor(
+                permitsPerSecond, burst,
+                initialConcurrency, minConcurrency, maxConcurrency,
+                maxWait, maxAttempts, meterRegistry));
+        restTemplate.getInterceptors().add(new SpotifyClientMetricsInterceptor(meterRegistry));
+        return restTemplate;
+    }
+
+    /**
+     * Virtual threads need Java 21; on older runtimes the switch is ignored so the
+     * same configuration still boots on the Java 17 image.
+     */
+    private boolean virtualThreadsAvailable() {
+        if (!virtualThreads) {
+            return false;
+        }
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                    + "using platform threads", Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+}
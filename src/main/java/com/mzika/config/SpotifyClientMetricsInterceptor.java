@@ -0,0 +1,46 @@
+package com.mzika.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records latency per Spotify host/status and the number of requests currently
+ * holding a connection, which is what the pool utilization dashboards read.
+ */
+public class SpotifyClientMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight;
+
+    public SpotifyClientMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.inFlight = meterRegistry.gauge("spotify.http.client.in-flight", new AtomicInteger());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "IO_ERROR";
+        inFlight.incrementAndGet();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = String.valueOf(response.getStatusCode().value());
+            return response;
+        } finally {
+            inFlight.decrementAndGet();
+            sample.stop(Timer.builder("spotify.http.client.requests")
+                    .tag("host", String.valueOf(request.getURI().getHost()))
+                    .tag("method", request.getMethod().name())
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+}
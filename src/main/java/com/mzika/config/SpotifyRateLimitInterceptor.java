@@ -0,0 +1,183 @@
+package com.mzika.config;
+
+import com.mzika.exception.SpotifyRateLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * App-wide admission control for Spotify calls: a token bucket caps the request
+ * rate and an AIMD limit caps concurrency (halved on every 429, grown by 1/limit
+ * per success). A 429 pauses all callers for its Retry-After; callers that cannot
+ * be admitted within {@code maxWait} fail fast with {@link SpotifyRateLimitException}.
+ */
+@Slf4j
+public class SpotifyRateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private final double minConcurrency;
+    private final double maxConcurrency;
+    private final long maxWaitNanos;
+    private final int maxAttempts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long pausedUntil = lastRefill;
+    private double concurrencyLimit;
+    private int inFlight;
+
+    private final Counter throttled;
+    private final Counter rejected;
+
+    public SpotifyRateLimitInterceptor(double permitsPerSecond, int burst,
+                                       int initialConcurrency, int minConcurrency, int maxConcurrency,
+                                       Duration maxWait, int maxAttempts,
+                                       MeterRegistry meterRegistry) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.concurrencyLimit = initialConcurrency;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxAttempts = maxAttempts;
+
+        this.throttled = meterRegistry.counter("spotify.rate-limit.throttled");
+        this.rejected = meterRegistry.counter("spotify.rate-limit.rejected");
+        meterRegistry.gauge("spotify.rate-limit.concurrency-limit", this, i -> i.concurrencyLimit);
+        meterRegistry.gauge("spotify.rate-limit.in-flight", this, i -> i.inFlight);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            acquire();
+
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException | RuntimeException e) {
+                release(false);
+                throw e;
+            }
+
+            if (response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                release(true);
+                return response;
+            }
+
+            Duration retryAfter = retryAfter(response);
+            response.close();
+            onThrottled(retryAfter);
+
+            log.warn("Spotify returned 429 for {} (attempt {}), retry after {}s",
+                    request.getURI().getPath(), attempt, retryAfter.toSeconds());
+
+            if (attempt >= maxAttempts || retryAfter.toNanos() > maxWaitNanos) {
+                throw new SpotifyRateLimitException("Spotify rate limit exceeded", retryAfter);
+            }
+        }
+    }
+
+    private void acquire() throws IOException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos;
+
+                if (now < pausedUntil) {
+                    waitNanos = pausedUntil - now;
+                } else if (inFlight >= (int) concurrencyLimit) {
+                    waitNanos = deadline - now;
+                } else {
+                    refill(now);
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        inFlight++;
+                        return;
+                    }
+                    waitNanos = (long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0 || waitNanos > remaining) {
+                    rejected.increment();
+                    throw new SpotifyRateLimitException("Too many concurrent Spotify requests",
+                            Duration.ofNanos(Math.max(waitNanos, TimeUnit.SECONDS.toNanos(1))));
+                }
+                changed.awaitNanos(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Spotify rate limit");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean success) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (success) {
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onThrottled(Duration retryAfter) {
+        throttled.increment();
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.max(minConcurrency, concurrencyLimit / 2);
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + retryAfter.toNanos());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * permitsPerSecond);
+        lastRefill = now;
+    }
+
+    private Duration retryAfter(ClientHttpResponse response) {
+        String header = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return DEFAULT_RETRY_AFTER;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(1, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+}
@@ -1,4 +1,44 @@
 package com.mzika.config;
 
-public class WebConfig {
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${http.async.threads:16}")
+    private int asyncThreads;
+
+    @Value("${http.async.queue-capacity:64}")
+    private int asyncQueueCapacity;
+
+    @Value("${http.async.timeout:60s}")
+    private Duration asyncTimeout;
+
+    /**
+     * Runs streamed responses (NDJSON playlists). Each stream holds a thread until
+     * its last page is written, so the pool is bounded; streams beyond threads and
+     * queue are rejected instead of piling up threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncThreads);
+        executor.setMaxPoolSize(asyncThreads);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
 }
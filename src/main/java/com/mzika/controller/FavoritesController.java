@@ -1,9 +1,12 @@
 package com.mzika.controller;
 
+import com.mzika.exception.UnknownTrackException;
 import com.mzika.model.dto.FavoriteTrackDTO;
+import com.mzika.model.dto.FavoritesAddResultDTO;
 import com.mzika.model.dto.TrackDTO;
 import com.mzika.model.entity.User;
 import com.mzika.service.FavoriteService;
+import com.mzika.service.ResourceVersions;
 import com.mzika.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -21,12 +25,21 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Slf4j
 public class FavoritesController {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_CHECK_IDS = 500;
+    private static final int MAX_BULK_TRACKS = 1000;
 
     private final FavoriteService favoriteService;
     private final UserService userService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
-    public ResponseEntity<?> getFavorites(@AuthenticationPrincipal OAuth2User principal) {
+    public ResponseEntity<?> getFavorites(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @AuthenticationPrincipal OAuth2User principal,
+            WebRequest webRequest) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Not authenticated"));
@@ -34,8 +47,24 @@ public class FavoritesController {
 
         try {
             User user = userService.getValidUser(principal.getAttribute("id"));
-            List<FavoriteTrackDTO> favorites = favoriteService.getUserFavorites(user);
-            return ResponseEntity.ok(favorites);
+
+            String etag = resourceVersions.etag(user.getId(), List.of(String.valueOf(limit), String.valueOf(cursor)),
+                    ResourceVersions.Resource.FAVORITES);
+            if (resourceVersions.notModified(webRequest, etag, "favorites")) {
+                return null;
+            }
+
+            // Without paging parameters, keep returning the full list
+            if (limit == null && cursor == null) {
+                List<FavoriteTrackDTO> favorites = favoriteService.getUserFavorites(user);
+                return ResponseEntity.ok(favorites);
+            }
+
+            int pageSize = Math.max(1, Math.min(limit != null ? limit : DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE));
+            return ResponseEntity.ok(favoriteService.getFavoritesPage(user, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to get favorites"));
@@ -56,12 +85,72 @@ public class FavoritesController {
             User user = userService.getValidUser(principal.getAttribute("id"));
             FavoriteTrackDTO saved = favoriteService.addFavorite(user, track);
             return ResponseEntity.ok(saved);
+        } catch (UnknownTrackException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Unknown track", "trackId", e.getTrackId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to add favorite"));
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> addFavorites(
+            @RequestBody List<TrackDTO> tracks,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated"));
+        }
+
+        if (tracks.size() > MAX_BULK_TRACKS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + MAX_BULK_TRACKS + " tracks per request"));
+        }
+
+        try {
+            User user = userService.getValidUser(principal.getAttribute("id"));
+            FavoritesAddResultDTO result = favoriteService.addFavorites(user, tracks);
+            return ResponseEntity.ok(Map.of(
+                    "added", result.getAdded().size(),
+                    "trackIds", result.getAdded(),
+                    "rejectedTrackIds", result.getRejected()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to add favorites"));
+        }
+    }
+
+    @PostMapping("/bulk/remove")
+    public ResponseEntity<?> removeFavorites(
+            @RequestBody Map<String, List<String>> request,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated"));
+        }
+
+        List<String> trackIds = request.get("trackIds");
+        if (trackIds == null || trackIds.size() > MAX_BULK_TRACKS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Provide up to " + MAX_BULK_TRACKS + " trackIds"));
+        }
+
+        try {
+            User user = userService.getValidUser(principal.getAttribute("id"));
+            List<String> removed = favoriteService.removeFavorites(user, trackIds);
+            return ResponseEntity.ok(Map.of("removed", removed.size(), "trackIds", removed));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to remove favorites"));
+        }
+    }
+
     @DeleteMapping("/{trackId}")
     public ResponseEntity<?> removeFavorite(
             @PathVariable String trackId,
@@ -101,4 +190,29 @@ public class FavoritesController {
                     .body(Map.of("error", "Failed to check favorite"));
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/check")
+    public ResponseEntity<?> checkFavorites(
+            @RequestBody Map<String, List<String>> request,
+            @AuthenticationPrincipal OAuth2User principal) {
+
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated"));
+        }
+
+        List<String> trackIds = request.get("trackIds");
+        if (trackIds == null || trackIds.size() > MAX_CHECK_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Provide up to " + MAX_CHECK_IDS + " trackIds"));
+        }
+
+        try {
+            User user = userService.getValidUser(principal.getAttribute("id"));
+            return ResponseEntity.ok(favoriteService.areFavorites(user, trackIds));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to check favorites"));
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package com.mzika.controller;
 
+import com.mzika.exception.SpotifyRateLimitException;
+import com.mzika.exception.SpotifyUnavailableException;
+import com.mzika.exception.UnknownTrackException;
 import com.mzika.model.dto.MoodRequestDTO;
+import com.mzika.model.dto.PlaylistBuildResultDTO;
 import com.mzika.model.dto.PlaylistDTO;
 import com.mzika.model.dto.RecommendationRequestDTO;
 import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
+import com.mzika.model.entity.SearchHistory;
 import com.mzika.model.entity.User;
+import com.mzika.service.FavoriteService;
+import com.mzika.service.PlaylistBuilderService;
 import com.mzika.service.RecommendationService;
+import com.mzika.service.ResourceVersions;
 import com.mzika.service.SearchHistoryService;
+import com.mzika.service.SearchResponseEncoder;
 import com.mzika.service.SpotifyService;
+import com.mzika.service.TrendingQueryService;
 import com.mzika.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @RestController
@@ -26,10 +45,19 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Slf4j
 public class MusicController {
+    private static final int MAX_PLAYLIST_TRACKS = 10_000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final SpotifyService spotifyService;
     private final UserService userService;
     private final RecommendationService recommendationService;
     private final SearchHistoryService searchHistoryService;
+    private final PlaylistBuilderService playlistBuilderService;
+    private final TrendingQueryService trendingQueryService;
+    private final FavoriteService favoriteService;
+    private final ResourceVersions resourceVersions;
+    private final SearchResponseEncoder searchResponseEncoder;
+    private final JsonMapper jsonMapper;
 
     @GetMapping("/search")
     public ResponseEntity<?> searchTracks(
@@ -50,15 +78,16 @@ public class MusicController {
             SearchResultDTO results = spotifyService.searchTracks(query, user.getAccessToken(), limit, offset);
 
             // Save to search history
-            searchHistoryService.saveSearch(user, query, results.getTotal());
+            searchHistoryService.saveSearch(user, query, results.getTotal(), results.getTracks());
 
             log.info("Found {} tracks for query: {}", results.getTotal(), query);
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(searchResponseEncoder.encode(results, favoriteService.getFavoriteIds(user)));
 
         } catch (Exception e) {
             log.error("Error searching tracks: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to search tracks", "message", e.getMessage()));
+            return spotifyError(e, Map.of("error", "Failed to search tracks", "message", e.getMessage()));
         }
     }
 
@@ -80,19 +109,19 @@ public class MusicController {
                     .getRecommendationsByMood(request, user.getAccessToken());
 
             log.info("Got {} mood-based recommendations", results.getTracks().size());
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(favoriteService.withFavoriteFlags(user, results));
 
         } catch (Exception e) {
             log.error("Error getting recommendations: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to get recommendations"));
+            return spotifyError(e, Map.of("error", "Failed to get recommendations"));
         }
     }
 
     @GetMapping("/recommendations/similar")
     public ResponseEntity<?> getSimilarTracks(
-            @RequestParam String trackName,
-            @RequestParam String artistName,
+            @RequestParam(required = false) String trackId,
+            @RequestParam(required = false) String trackName,
+            @RequestParam(required = false) String artistName,
             @RequestParam(required = false, defaultValue = "20") Integer limit,
             @AuthenticationPrincipal OAuth2User principal) {
 
@@ -101,24 +130,35 @@ public class MusicController {
                     .body(Map.of("error", "Not authenticated"));
         }
 
+        if (trackId == null && (trackName == null || artistName == null)) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Either trackId or trackName and artistName are required"));
+        }
+
         try {
             String spotifyId = principal.getAttribute("id");
             User user = userService.getValidUser(spotifyId);
 
-            SearchResultDTO results = recommendationService
-                    .getSimilarTracks(trackName, artistName, user.getAccessToken(), limit);
+            SearchResultDTO results = trackId != null
+                    ? recommendationService.getSimilarTracks(trackId, user.getAccessToken(), limit)
+                    : recommendationService.getSimilarTracks(trackName, artistName, user.getAccessToken(), limit);
 
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok(favoriteService.withFavoriteFlags(user, results));
 
+        } catch (UnknownTrackException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Unknown track", "trackId", e.getTrackId()));
         } catch (Exception e) {
             log.error("Error getting similar tracks: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to get similar tracks"));
+            return spotifyError(e, Map.of("error", "Failed to get similar tracks"));
         }
     }
 
     @GetMapping("/playlists")
-    public ResponseEntity<?> getUserPlaylists(@AuthenticationPrincipal OAuth2User principal) {
+    public ResponseEntity<?> getUserPlaylists(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @AuthenticationPrincipal OAuth2User principal,
+            WebRequest webRequest) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Not authenticated"));
@@ -126,17 +166,65 @@ public class MusicController {
 
         try {
             User user = userService.getValidUser(principal.getAttribute("id"));
-            List<PlaylistDTO> playlists = spotifyService.getUserPlaylists(user.getAccessToken());
+            boolean ndjson = accept != null && accept.contains(NDJSON);
+
+            String etag = resourceVersions.playlistsEtag(user.getId(), ndjson);
+            if (resourceVersions.notModified(webRequest, etag, "playlists")) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            if (ndjson) {
+                Iterator<PlaylistDTO> playlists = spotifyService.iterateUserPlaylists(user.getAccessToken());
+                // Fetch the first page before committing to a 200, so its failure gets a proper status
+                playlists.hasNext();
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(NDJSON))
+                        .body(streamPlaylists(playlists));
+            }
+
+            List<PlaylistDTO> playlists = spotifyService.getUserPlaylists(user.getSpotifyId(), user.getAccessToken());
             return ResponseEntity.ok(playlists);
         } catch (Exception e) {
             log.error("Error getting playlists: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Failed to get playlists"));
+            return spotifyError(e, Map.of("error", "Failed to get playlists"));
         }
     }
 
+    /**
+     * Writes every playlist as one JSON line as soon as its page arrives. A failure
+     * after the first page can no longer change the status, so it ends the stream
+     * with an {@code {"error": ...}} line; a stream without one is complete.
+     */
+    private StreamingResponseBody streamPlaylists(Iterator<PlaylistDTO> playlists) {
+        return out -> {
+            int count = 0;
+            try {
+                while (playlists.hasNext()) {
+                    out.write(jsonMapper.writeValueAsBytes(playlists.next()));
+                    out.write('\n');
+                    out.flush();
+                    count++;
+                }
+            } catch (IOException e) {
+                // The client went away; there is nobody left to tell
+                log.debug("Playlist stream closed by the client after {} playlists", count);
+            } catch (RuntimeException e) {
+                log.error("Playlist stream aborted after {} playlists: {}", count, e.getMessage(), e);
+                try {
+                    out.write(jsonMapper.writeValueAsBytes(Map.of(
+                            "error", "Failed to get playlists",
+                            "playlistsSent", count)));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException ignored) {
+                    // Client gone as well
+                }
+            }
+        };
+    }
+
     @GetMapping("/history")
-    public ResponseEntity<?> getSearchHistory(@AuthenticationPrincipal OAuth2User principal) {
+    public ResponseEntity<?> getSearchHistory(@AuthenticationPrincipal OAuth2User principal, WebRequest webRequest) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Not authenticated"));
@@ -144,13 +232,24 @@ public class MusicController {
 
         try {
             User user = userService.getValidUser(principal.getAttribute("id"));
-            List<Map<String, Object>> history = searchHistoryService.getRecentSearches(user)
-                    .stream()
+
+            String etag = resourceVersions.etag(user.getId(), null, ResourceVersions.Resource.HISTORY);
+            if (resourceVersions.notModified(webRequest, etag, "history")) {
+                return null;
+            }
+
+            List<SearchHistory> searches = searchHistoryService.getRecentSearches(user);
+            Map<String, TrackDTO> topTracks = searchHistoryService.resolveTopTracks(searches);
+            List<Map<String, Object>> history = searches.stream()
                     .map(h -> Map.<String, Object>of(
                             "id", h.getId(),
                             "query", h.getQuery(),
                             "resultsCount", h.getResultsCount(),
-                            "searchedAt", h.getSearchedAt().toString()
+                            "searchedAt", h.getSearchedAt().toString(),
+                            "topTracks", h.getTopTrackIds() == null ? List.of() : h.getTopTrackIds().stream()
+                                    .map(topTracks::get)
+                                    .filter(Objects::nonNull)
+                                    .toList()
                     ))
                     .toList();
             return ResponseEntity.ok(history);
@@ -160,6 +259,18 @@ public class MusicController {
         }
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingSearches(
+            @RequestParam(required = false, defaultValue = "10") Integer limit,
+            @AuthenticationPrincipal OAuth2User principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Not authenticated"));
+        }
+
+        return ResponseEntity.ok(trendingQueryService.trending(Math.max(1, Math.min(limit, 50))));
+    }
+
     @DeleteMapping("/history")
     public ResponseEntity<?> clearHistory(@AuthenticationPrincipal OAuth2User principal) {
         if (principal == null) {
@@ -208,25 +319,49 @@ public class MusicController {
                         .body(Map.of("error", "No tracks provided"));
             }
 
-            // Spotify allows max 100 tracks per request
-            List<String> limitedUris = trackUris.stream().limit(100).toList();
+            if (trackUris.size() > MAX_PLAYLIST_TRACKS) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "A playlist can hold at most " + MAX_PLAYLIST_TRACKS + " tracks"));
+            }
 
             String playlistId = spotifyService.createPlaylist(
                     spotifyUserId, name.trim(), description, user.getAccessToken()
             );
 
-            spotifyService.addTracksToPlaylist(playlistId, limitedUris, user.getAccessToken());
+            // Spotify allows max 100 tracks per request, the builder sends them in chunks
+            PlaylistBuildResultDTO build = playlistBuilderService.addTracks(
+                    playlistId, trackUris, user.getAccessToken());
+            resourceVersions.bump(user.getId(), ResourceVersions.Resource.PLAYLISTS);
 
             return ResponseEntity.ok(Map.of(
-                    "message", "Playlist created successfully!",
+                    "message", build.getFailedChunks().isEmpty()
+                            ? "Playlist created successfully!"
+                            : "Playlist created with " + build.getTracksAdded() + " of "
+                                    + build.getRequestedTracks() + " tracks",
                     "playlistId", playlistId,
-                    "playlistUrl", "https://open.spotify.com/playlist/" + playlistId
+                    "playlistUrl", "https://open.spotify.com/playlist/" + playlistId,
+                    "tracksAdded", build.getTracksAdded(),
+                    "requestedTracks", build.getRequestedTracks()
             ));
 
         } catch (Exception e) {
             log.error("Error creating playlist: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
+            return spotifyError(e, Map.of("error", e.getMessage()));
         }
     }
+
+    private ResponseEntity<?> spotifyError(Exception e, Map<String, ?> body) {
+        Optional<SpotifyUnavailableException> unavailable = SpotifyUnavailableException.findIn(e);
+        if (unavailable.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
+        }
+
+        boolean rateLimited = unavailable.get() instanceof SpotifyRateLimitException;
+        long retryAfter = Math.max(1, unavailable.get().getRetryAfter().toSeconds());
+        return ResponseEntity.status(rateLimited ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of("error", rateLimited
+                        ? "Spotify is busy, please retry shortly"
+                        : "Spotify is temporarily unavailable"));
+    }
 }
@@ -1,16 +1,20 @@
 package com.mzika.controller;
 
 import com.mzika.model.entity.User;
-import com.mzika.repository.FavoriteTrackRepository;
+import com.mzika.model.entity.UserStats;
+import com.mzika.service.ResourceVersions;
 import com.mzika.service.SearchHistoryService;
 import com.mzika.service.UserService;
+import com.mzika.service.UserStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -20,11 +24,12 @@ import java.util.Map;
 public class StatsController {
 
     private final UserService userService;
-    private final FavoriteTrackRepository favoriteTrackRepository;
+    private final UserStatsService userStatsService;
     private final SearchHistoryService searchHistoryService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping
-    public ResponseEntity<?> getUserStats(@AuthenticationPrincipal OAuth2User principal) {
+    public ResponseEntity<?> getUserStats(@AuthenticationPrincipal OAuth2User principal, WebRequest webRequest) {
         if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "Not authenticated"));
@@ -33,10 +38,19 @@ public class StatsController {
         try {
             User user = userService.getValidUser(principal.getAttribute("id"));
 
+            String etag = resourceVersions.etag(user.getId(),
+                    Arrays.asList(principal.getAttribute("product"), principal.getAttribute("country")),
+                    ResourceVersions.Resource.FAVORITES, ResourceVersions.Resource.HISTORY);
+            if (resourceVersions.notModified(webRequest, etag, "stats")) {
+                return null;
+            }
+
+            UserStats userStats = userStatsService.getStats(user);
+
             Map<String, Object> stats = new LinkedHashMap<>();
-            stats.put("totalFavorites", favoriteTrackRepository.countByUser(user));
-            stats.put("totalSearches", searchHistoryService.getStats(user).get("totalSearches"));
-            stats.put("topQueries", searchHistoryService.getStats(user).get("topQueries"));
+            stats.put("totalFavorites", userStats.getTotalFavorites());
+            stats.put("totalSearches", userStats.getTotalSearches());
+            stats.put("topQueries", searchHistoryService.getTopQueries(user));
             stats.put("memberSince", user.getCreatedAt().toString());
             stats.put("spotifyPlan", principal.getAttribute("product"));
             stats.put("country", principal.getAttribute("country"));
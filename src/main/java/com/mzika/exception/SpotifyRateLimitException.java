@@ -0,0 +1,14 @@
+package com.mzika.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a Spotify call cannot be made within our quota, either because
+ * Spotify answered 429 or because the local limiter could not admit it in time.
+ */
+public class SpotifyRateLimitException extends SpotifyUnavailableException {
+
+    public SpotifyRateLimitException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mzika.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Thrown when a Spotify call is refused locally to protect the backend: an open
+ * circuit breaker, a full bulkhead or an exhausted rate limit.
+ */
+@Getter
+public class SpotifyUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public SpotifyUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /** Finds a Spotify availability failure in the cause chain of a wrapped service exception. */
+    public static Optional<SpotifyUnavailableException> findIn(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof SpotifyUnavailableException unavailable) {
+                return Optional.of(unavailable);
+            }
+        }
+        return Optional.empty();
+    }
+}
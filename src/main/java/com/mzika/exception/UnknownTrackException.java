@@ -0,0 +1,18 @@
+package com.mzika.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request names a track by id alone and the catalog has never seen it,
+ * so there is nothing to resolve its metadata from.
+ */
+@Getter
+public class UnknownTrackException extends RuntimeException {
+
+    private final String trackId;
+
+    public UnknownTrackException(String trackId) {
+        super("Unknown track: " + trackId);
+        this.trackId = trackId;
+    }
+}
@@ -2,20 +2,18 @@ package com.mzika.model.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.util.List;
 
-@Data
+@Value  // interned and shared across cached results and users
 @Builder
 @AllArgsConstructor
-@NoArgsConstructor
 public class AlbumDTO {
-    private String id;
-    private String name;
-    private String uri;
-    private String releaseDate;
-    private Integer totalTracks;
-    private List<ImageDTO> images;
+    String id;
+    String name;
+    String uri;
+    String releaseDate;
+    Integer totalTracks;
+    List<ImageDTO> images;
 }
@@ -2,15 +2,13 @@ package com.mzika.model.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
+@Value
 @Builder
 @AllArgsConstructor
-@NoArgsConstructor
 public class ArtistDTO {
-    private String id;
-    private String name;
-    private String uri;
+    String id;
+    String name;
+    String uri;
 }
@@ -0,0 +1,17 @@
+package com.mzika.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoritesAddResultDTO {
+    private List<String> added;     // newly favorited; ids that were already favorites are in neither list
+    private List<String> rejected;  // sent by id only and not in the catalog
+}
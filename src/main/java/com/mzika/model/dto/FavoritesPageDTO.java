@@ -0,0 +1,17 @@
+package com.mzika.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoritesPageDTO {
+    private List<FavoriteTrackDTO> items;
+    private String nextCursor;  // pass back as ?cursor= for the next page, null on the last one
+}
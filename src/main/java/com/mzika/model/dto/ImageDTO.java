@@ -2,16 +2,14 @@ package com.mzika.model.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
+@Value
 @Builder
 @AllArgsConstructor
-@NoArgsConstructor
 public class ImageDTO {
-    private String id;
-    private Integer width;
-    private Integer height;
-    private String url;
+    String id;
+    Integer width;
+    Integer height;
+    String url;
 }
@@ -0,0 +1,21 @@
+package com.mzika.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaylistBuildResultDTO {
+    private String playlistId;
+    private Integer requestedTracks;
+    private Integer tracksAdded;
+    private Integer chunks;
+    private List<Integer> failedChunks;
+    private Long durationMs;
+}
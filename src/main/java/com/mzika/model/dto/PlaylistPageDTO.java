@@ -0,0 +1,18 @@
+package com.mzika.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaylistPageDTO {
+    private List<PlaylistDTO> items;
+    private Integer total;
+    private String next;    // URL of the following page, null on the last one
+}
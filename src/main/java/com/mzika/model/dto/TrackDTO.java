@@ -1,24 +1,72 @@
 package com.mzika.model.dto;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+/**
+ * Scalars are stored unboxed, with a sentinel for "unknown"; getters and setters
+ * speak nullable types, so JSON and JDBC still see null where Spotify sent none.
+ */
 @Data
-@Builder
-@AllArgsConstructor
 @NoArgsConstructor
 public class TrackDTO {
+
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final byte NO_BOOLEAN = -1;
+
     private String id;
     private String name;
     private String uri;
-    private Integer durationMs;
-    private Boolean explicit;
-    private Integer popularity;
+    private int durationMs = NO_INT;
+    private byte explicit = NO_BOOLEAN;
+    private int popularity = NO_INT;
     private String previewUrl;
     private List<ArtistDTO> artists;
     private AlbumDTO album;
+    private Boolean isFavorite;     // set per user on search/recommendation responses
+
+    @Builder(toBuilder = true)
+    public TrackDTO(String id, String name, String uri,
+                    @Builder.ObtainVia(method = "getDurationMs") Integer durationMs,
+                    @Builder.ObtainVia(method = "getExplicit") Boolean explicit,
+                    @Builder.ObtainVia(method = "getPopularity") Integer popularity,
+                    String previewUrl, List<ArtistDTO> artists, AlbumDTO album, Boolean isFavorite) {
+        this.id = id;
+        this.name = name;
+        this.uri = uri;
+        setDurationMs(durationMs);
+        setExplicit(explicit);
+        setPopularity(popularity);
+        this.previewUrl = previewUrl;
+        this.artists = artists;
+        this.album = album;
+        this.isFavorite = isFavorite;
+    }
+
+    public Integer getDurationMs() {
+        return durationMs == NO_INT ? null : durationMs;
+    }
+
+    public void setDurationMs(Integer durationMs) {
+        this.durationMs = durationMs == null ? NO_INT : durationMs;
+    }
+
+    public Boolean getExplicit() {
+        return explicit == NO_BOOLEAN ? null : explicit == 1;
+    }
+
+    public void setExplicit(Boolean explicit) {
+        this.explicit = explicit == null ? NO_BOOLEAN : (byte) (explicit ? 1 : 0);
+    }
+
+    public Integer getPopularity() {
+        return popularity == NO_INT ? null : popularity;
+    }
+
+    public void setPopularity(Integer popularity) {
+        this.popularity = popularity == null ? NO_INT : popularity;
+    }
 }
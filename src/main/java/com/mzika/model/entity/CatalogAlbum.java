@@ -0,0 +1,36 @@
+package com.mzika.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "catalog_albums")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogAlbum {
+
+    @Id
+    private String id;      // Spotify album id
+
+    private String name;
+    private String uri;
+    private String releaseDate;
+    private Integer totalTracks;
+
+    @ElementCollection
+    @CollectionTable(name = "catalog_album_images", joinColumns = @JoinColumn(name = "album_id"))
+    @OrderColumn(name = "position")
+    @Builder.Default
+    private List<CatalogImage> images = new ArrayList<>();
+
+    private LocalDateTime updatedAt;
+}
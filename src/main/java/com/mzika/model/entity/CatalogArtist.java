@@ -0,0 +1,26 @@
+package com.mzika.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "catalog_artists")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogArtist {
+
+    @Id
+    private String id;      // Spotify artist id
+
+    private String name;
+    private String uri;
+
+    private LocalDateTime updatedAt;
+}
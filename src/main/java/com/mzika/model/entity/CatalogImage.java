@@ -0,0 +1,22 @@
+package com.mzika.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogImage {
+
+    @Column(length = 1000)
+    private String url;
+
+    private Integer width;
+    private Integer height;
+}
@@ -0,0 +1,46 @@
+package com.mzika.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "catalog_tracks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogTrack {
+
+    @Id
+    private String id;      // Spotify track id
+
+    private String name;
+    private String uri;
+    private Integer durationMs;
+    private Boolean explicit;
+    private Integer popularity;
+
+    @Column(length = 1000)
+    private String previewUrl;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "album_id")
+    private CatalogAlbum album;
+
+    @ManyToMany
+    @JoinTable(name = "catalog_track_artists",
+            joinColumns = @JoinColumn(name = "track_id"),
+            inverseJoinColumns = @JoinColumn(name = "artist_id"))
+    @OrderColumn(name = "position")
+    @Builder.Default
+    private List<CatalogArtist> artists = new ArrayList<>();
+
+    private LocalDateTime updatedAt;
+}
@@ -39,6 +39,7 @@ public class FavoriteTrack {
     private Integer popularity;
     private Boolean explicit;
 
+    @Column(nullable = false)
     private LocalDateTime savedAt;
 
     @PrePersist
@@ -5,8 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
 @Table(name = "search_history")
@@ -28,6 +31,11 @@ public class SearchHistory {
 
     private Integer resultsCount;
 
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "top_track_ids")
+    private List<String> topTrackIds;
+
+    @Column(nullable = false)
     private LocalDateTime searchedAt;
 
     @PrePersist
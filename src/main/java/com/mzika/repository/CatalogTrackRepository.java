@@ -0,0 +1,17 @@
+package com.mzika.repository;
+
+import com.mzika.model.entity.CatalogTrack;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CatalogTrackRepository extends JpaRepository<CatalogTrack, String> {
+
+    // Both collections are indexed lists, so they can be fetched in one query
+    @EntityGraph(attributePaths = {"album", "album.images", "artists"})
+    List<CatalogTrack> findByIdIn(Collection<String> ids);
+}
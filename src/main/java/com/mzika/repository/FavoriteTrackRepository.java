@@ -1,18 +1,39 @@
 package com.mzika.repository;
 
+import com.mzika.model.dto.FavoriteTrackDTO;
 import com.mzika.model.entity.FavoriteTrack;
 import com.mzika.model.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FavoriteTrackRepository extends JpaRepository<FavoriteTrack, String> {
-    List<FavoriteTrack> findByUserOrderBySavedAtDesc(User user);
+
+    String DTO_PROJECTION = """
+            SELECT new com.mzika.model.dto.FavoriteTrackDTO(f.id, f.trackId, f.trackName, f.artistName,
+                f.albumName, f.albumImageUrl, f.durationMs, f.popularity, f.explicit, f.savedAt)
+            FROM FavoriteTrack f""";
+
+    @Query(DTO_PROJECTION + " WHERE f.user = ?1 ORDER BY f.savedAt DESC, f.id DESC")
+    List<FavoriteTrackDTO> findDTOsByUser(User user, Limit limit);
+
+    // Keyset page: everything strictly after (savedAt, id) in newest-first order
+    @Query(DTO_PROJECTION + """
+             WHERE f.user = ?1 AND (f.savedAt < ?2 OR (f.savedAt = ?2 AND f.id < ?3))
+            ORDER BY f.savedAt DESC, f.id DESC""")
+    List<FavoriteTrackDTO> findDTOsByUserAfter(User user, LocalDateTime savedAt, String id, Limit limit);
+
+    @Query("SELECT f.trackId FROM FavoriteTrack f WHERE f.user = ?1")
+    List<String> findTrackIdsByUser(User user);
+
     Optional<FavoriteTrack> findByUserAndTrackId(User user, String trackId);
     boolean existsByUserAndTrackId(User user, String trackId);
-    void deleteByUserAndTrackId(User user, String trackId);
+    long deleteByUserAndTrackId(User user, String trackId);
     long countByUser(User user);
 }
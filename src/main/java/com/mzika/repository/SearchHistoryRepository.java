@@ -3,9 +3,11 @@ package com.mzika.repository;
 import com.mzika.model.entity.SearchHistory;
 import com.mzika.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,10 +16,23 @@ public interface  SearchHistoryRepository extends JpaRepository<SearchHistory, S
     @Query("SELECT s FROM SearchHistory s WHERE s.user = ?1 ORDER BY s.searchedAt DESC LIMIT 10")
     List<SearchHistory> findTop10ByUserOrderBySearchedAtDesc(User user);
 
-    void deleteByUser(User user);
+    // Single bulk statement instead of loading and deleting every row
+    @Modifying
+    @Query("DELETE FROM SearchHistory s WHERE s.user = ?1")
+    int deleteByUser(User user);
 
     long countByUser(User user);
 
-    @Query("SELECT s.query, COUNT(s) as count FROM SearchHistory s WHERE s.user = ?1 GROUP BY s.query ORDER BY count DESC LIMIT 5")
-    List<Object[]> findTopQueriesByUser(User user);
+    // Counts only the user's most recent searches since the cutoff, so seeding a sketch
+    // reads a bounded slice of recent partitions through idx_search_history_user_recent
+    @Query(value = """
+            SELECT query, count(*) AS count
+            FROM (SELECT query FROM search_history
+                  WHERE user_id = ?1 AND searched_at >= ?2
+                  ORDER BY searched_at DESC
+                  LIMIT ?3) recent
+            GROUP BY query
+            ORDER BY count DESC
+            LIMIT ?4""", nativeQuery = true)
+    List<Object[]> findRecentTopQueriesByUser(String userId, LocalDateTime since, int maxSearches, int limit);
 }
@@ -3,10 +3,14 @@ package com.mzika.repository;
 import com.mzika.model.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, String> {
 
     Optional<User> findBySpotifyId(String SpotifyId);
     Optional<User> findByEmail(String email);
+    List<User> findBySpotifyIdInAndTokenExpiresAtBefore(Collection<String> spotifyIds, LocalDateTime before);
 }
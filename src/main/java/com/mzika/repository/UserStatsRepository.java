@@ -0,0 +1,42 @@
+package com.mzika.repository;
+
+import com.mzika.model.entity.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, String> {
+
+    // Backfills the counters from the source tables the first time a user's stats are read
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_stats (user_id, total_searches, total_favorites, updated_at)
+            SELECT ?1,
+                   (SELECT count(*) FROM search_history WHERE user_id = ?1),
+                   (SELECT count(*) FROM favorite_tracks WHERE user_id = ?1),
+                   now()
+            ON CONFLICT (user_id) DO NOTHING""", nativeQuery = true)
+    int insertIfAbsent(String userId);
+
+    // Must run after the favorite rows changed in the same transaction: a missing row
+    // is backfilled with them already counted, an existing one gets the delta
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_stats (user_id, total_searches, total_favorites, updated_at)
+            SELECT ?1,
+                   (SELECT count(*) FROM search_history WHERE user_id = ?1),
+                   (SELECT count(*) FROM favorite_tracks WHERE user_id = ?1),
+                   now()
+            ON CONFLICT (user_id) DO UPDATE
+                SET total_favorites = user_stats.total_favorites + ?2, updated_at = now()""", nativeQuery = true)
+    int addFavorites(String userId, long delta);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_stats (user_id, total_searches, total_favorites, updated_at)
+            SELECT ?1, 0, (SELECT count(*) FROM favorite_tracks WHERE user_id = ?1), now()
+            ON CONFLICT (user_id) DO UPDATE SET total_searches = 0, updated_at = now()""", nativeQuery = true)
+    int resetSearches(String userId);
+}
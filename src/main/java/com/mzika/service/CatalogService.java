@@ -0,0 +1,281 @@
+package com.mzika.service;
+
+import com.mzika.model.dto.AlbumDTO;
+import com.mzika.model.dto.ArtistDTO;
+import com.mzika.model.dto.ImageDTO;
+import com.mzika.model.dto.TrackDTO;
+import com.mzika.model.entity.CatalogTrack;
+import com.mzika.repository.CatalogTrackRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Normalized local copy of the tracks, artists, albums and images we have seen in
+ * Spotify responses. Parsed tracks are queued without blocking the request and
+ * upserted in batches, so metadata can later be resolved without calling Spotify.
+ * Upserts only rewrite rows whose values changed, so {@code updated_at} is the
+ * time of the last change and re-seen rows cost no new row versions.
+ */
+@Service
+@Slf4j
+public class CatalogService {
+
+    private static final String UPSERT_ARTIST = """
+            INSERT INTO catalog_artists (id, name, uri, updated_at) VALUES (?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, uri = EXCLUDED.uri,
+                updated_at = EXCLUDED.updated_at
+            WHERE (catalog_artists.name, catalog_artists.uri)
+                IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.uri)""";
+
+    private static final String UPSERT_ALBUM = """
+            INSERT INTO catalog_albums (id, name, uri, release_date, total_tracks, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, uri = EXCLUDED.uri,
+                release_date = EXCLUDED.release_date, total_tracks = EXCLUDED.total_tracks,
+                updated_at = EXCLUDED.updated_at
+            WHERE (catalog_albums.name, catalog_albums.uri, catalog_albums.release_date,
+                   catalog_albums.total_tracks)
+                IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.uri, EXCLUDED.release_date, EXCLUDED.total_tracks)""";
+
+    private static final String UPSERT_ALBUM_IMAGE = """
+            INSERT INTO catalog_album_images (album_id, position, url, width, height) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (album_id, position) DO UPDATE SET url = EXCLUDED.url,
+                width = EXCLUDED.width, height = EXCLUDED.height
+            WHERE (catalog_album_images.url, catalog_album_images.width, catalog_album_images.height)
+                IS DISTINCT FROM (EXCLUDED.url, EXCLUDED.width, EXCLUDED.height)""";
+
+    private static final String UPSERT_TRACK = """
+            INSERT INTO catalog_tracks (id, name, uri, duration_ms, explicit, popularity, preview_url,
+                album_id, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, uri = EXCLUDED.uri,
+                duration_ms = EXCLUDED.duration_ms, explicit = EXCLUDED.explicit,
+                popularity = EXCLUDED.popularity, preview_url = EXCLUDED.preview_url,
+                album_id = EXCLUDED.album_id, updated_at = EXCLUDED.updated_at
+            WHERE (catalog_tracks.name, catalog_tracks.uri, catalog_tracks.duration_ms,
+                   catalog_tracks.explicit, catalog_tracks.popularity, catalog_tracks.preview_url,
+                   catalog_tracks.album_id)
+                IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.uri, EXCLUDED.duration_ms, EXCLUDED.explicit,
+                   EXCLUDED.popularity, EXCLUDED.preview_url, EXCLUDED.album_id)""";
+
+    private static final String UPSERT_TRACK_ARTIST = """
+            INSERT INTO catalog_track_artists (track_id, position, artist_id) VALUES (?, ?, ?)
+            ON CONFLICT (track_id, position) DO UPDATE SET artist_id = EXCLUDED.artist_id
+            WHERE catalog_track_artists.artist_id IS DISTINCT FROM EXCLUDED.artist_id""";
+
+    // Positional rows past the new size belong to an older version of the album or track
+    private static final String TRIM_ALBUM_IMAGES =
+            "DELETE FROM catalog_album_images WHERE album_id = ? AND position >= ?";
+
+    private static final String TRIM_TRACK_ARTISTS =
+            "DELETE FROM catalog_track_artists WHERE track_id = ? AND position >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogTrackRepository catalogTrackRepository;
+    private final OffHeapTrackStore trackStore;
+    private final BlockingQueue<TrackDTO> pending;
+    private final int batchSize;
+    private final Counter upserted;
+    private final Counter dropped;
+
+    public CatalogService(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          CatalogTrackRepository catalogTrackRepository,
+                          OffHeapTrackStore trackStore,
+                          MeterRegistry meterRegistry,
+                          @Value("${catalog.max-pending:20000}") int maxPending,
+                          @Value("${catalog.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogTrackRepository = catalogTrackRepository;
+        this.trackStore = trackStore;
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+        this.batchSize = batchSize;
+        this.upserted = meterRegistry.counter("catalog.tracks.upserted");
+        this.dropped = meterRegistry.counter("catalog.tracks.dropped");
+        meterRegistry.gauge("catalog.tracks.pending", pending, Collection::size);
+    }
+
+    /** Queues parsed tracks for the next flush; never blocks, drops when full. */
+    public void record(Collection<TrackDTO> tracks) {
+        if (tracks == null) {
+            return;
+        }
+        for (TrackDTO track : tracks) {
+            if (track.getId() != null && !pending.offer(track)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<TrackDTO> findTrack(String trackId) {
+        return findTracks(List.of(trackId)).stream().findFirst();
+    }
+
+    /** Looks tracks up in the off-heap store first and only queries the database for misses. */
+    @Transactional(readOnly = true)
+    public List<TrackDTO> findTracks(Collection<String> trackIds) {
+        List<TrackDTO> found = new ArrayList<>(trackIds.size());
+        List<String> missing = new ArrayList<>();
+        for (String trackId : trackIds) {
+            TrackDTO track = trackStore.get(trackId);
+            if (track != null) {
+                found.add(track);
+            } else {
+                missing.add(trackId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (CatalogTrack track : catalogTrackRepository.findByIdIn(missing)) {
+                TrackDTO dto = toDTO(track);
+                trackStore.put(dto);
+                found.add(dto);
+            }
+        }
+        return found;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.flush-interval:2s}")
+    @PreDestroy
+    public void flush() {
+        List<TrackDTO> drained = new ArrayList<>(batchSize);
+        while (pending.drainTo(drained, batchSize) > 0) {
+            try {
+                upsert(drained);
+                upserted.increment(drained.size());
+                trackStore.putAll(drained);
+            } catch (Exception e) {
+                log.error("Failed to upsert {} catalog tracks: {}", drained.size(), e.getMessage());
+            }
+            drained.clear();
+        }
+    }
+
+    private void upsert(List<TrackDTO> tracks) {
+        // Last occurrence wins, and each statement sees every id at most once
+        Map<String, TrackDTO> tracksById = new LinkedHashMap<>();
+        Map<String, ArtistDTO> artistsById = new LinkedHashMap<>();
+        Map<String, AlbumDTO> albumsById = new LinkedHashMap<>();
+        for (TrackDTO track : tracks) {
+            tracksById.put(track.getId(), track);
+            if (track.getArtists() != null) {
+                track.getArtists().stream()
+                        .filter(artist -> artist.getId() != null)
+                        .forEach(artist -> artistsById.put(artist.getId(), artist));
+            }
+            if (albumId(track) != null) {
+                albumsById.put(albumId(track), track.getAlbum());
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> artistRows = artistsById.values().stream()
+                .map(a -> new Object[]{a.getId(), a.getName(), a.getUri(), now})
+                .toList();
+
+        List<Object[]> albumRows = albumsById.values().stream()
+                .map(a -> new Object[]{a.getId(), a.getName(), a.getUri(), a.getReleaseDate(),
+                        a.getTotalTracks(), now})
+                .toList();
+
+        List<Object[]> imageRows = new ArrayList<>();
+        List<Object[]> imageTrimRows = new ArrayList<>(albumsById.size());
+        for (AlbumDTO album : albumsById.values()) {
+            List<ImageDTO> images = album.getImages() != null ? album.getImages() : List.of();
+            for (int i = 0; i < images.size(); i++) {
+                ImageDTO image = images.get(i);
+                imageRows.add(new Object[]{album.getId(), i, image.getUrl(), image.getWidth(), image.getHeight()});
+            }
+            imageTrimRows.add(new Object[]{album.getId(), images.size()});
+        }
+
+        List<Object[]> trackRows = tracksById.values().stream()
+                .map(t -> new Object[]{t.getId(), t.getName(), t.getUri(), t.getDurationMs(), t.getExplicit(),
+                        t.getPopularity(), t.getPreviewUrl(),
+                        albumId(t), now})
+                .toList();
+
+        List<Object[]> trackArtistRows = new ArrayList<>();
+        List<Object[]> trackArtistTrimRows = new ArrayList<>(tracksById.size());
+        for (TrackDTO track : tracksById.values()) {
+            List<ArtistDTO> artists = track.getArtists() != null ? track.getArtists() : List.of();
+            int position = 0;
+            for (ArtistDTO artist : artists) {
+                if (artist.getId() != null) {
+                    trackArtistRows.add(new Object[]{track.getId(), position++, artist.getId()});
+                }
+            }
+            trackArtistTrimRows.add(new Object[]{track.getId(), position});
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_ARTIST, artistRows);
+            jdbcTemplate.batchUpdate(UPSERT_ALBUM, albumRows);
+            jdbcTemplate.batchUpdate(UPSERT_ALBUM_IMAGE, imageRows);
+            jdbcTemplate.batchUpdate(TRIM_ALBUM_IMAGES, imageTrimRows);
+            jdbcTemplate.batchUpdate(UPSERT_TRACK, trackRows);
+            jdbcTemplate.batchUpdate(UPSERT_TRACK_ARTIST, trackArtistRows);
+            jdbcTemplate.batchUpdate(TRIM_TRACK_ARTISTS, trackArtistTrimRows);
+        });
+    }
+
+    /** Tracks without an album carry an empty placeholder, which has no catalog row. */
+    private static String albumId(TrackDTO track) {
+        AlbumDTO album = track.getAlbum();
+        return album != null && album.getId() != null && !album.getId().isEmpty() ? album.getId() : null;
+    }
+
+    private TrackDTO toDTO(CatalogTrack track) {
+        AlbumDTO album = track.getAlbum() == null ? null : AlbumDTO.builder()
+                .id(track.getAlbum().getId())
+                .name(track.getAlbum().getName())
+                .uri(track.getAlbum().getUri())
+                .releaseDate(track.getAlbum().getReleaseDate())
+                .totalTracks(track.getAlbum().getTotalTracks())
+                .images(track.getAlbum().getImages().stream()
+                        .map(i -> ImageDTO.builder()
+                                .url(i.getUrl())
+                                .width(i.getWidth())
+                                .height(i.getHeight())
+                                .build())
+                        .toList())
+                .build();
+
+        return TrackDTO.builder()
+                .id(track.getId())
+                .name(track.getName())
+                .uri(track.getUri())
+                .durationMs(track.getDurationMs())
+                .explicit(track.getExplicit())
+                .popularity(track.getPopularity())
+                .previewUrl(track.getPreviewUrl())
+                .artists(track.getArtists().stream()
+                        .map(a -> ArtistDTO.builder()
+                                .id(a.getId())
+                                .name(a.getName())
+                                .uri(a.getUri())
+                                .build())
+                        .toList())
+                .album(album)
+                .build();
+    }
+}
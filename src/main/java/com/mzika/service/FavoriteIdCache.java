@@ -0,0 +1,83 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.entity.User;
+import com.mzika.repository.FavoriteTrackRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user set of favorited track ids, loaded on first use and evicted for the
+ * least recently active users. Writes are applied once their transaction has
+ * committed, so a concurrent load can never be overwritten with uncommitted state.
+ */
+@Component
+public class FavoriteIdCache {
+
+    private final FavoriteTrackRepository favoriteTrackRepository;
+    private final Cache<String, Set<String>> trackIdsByUser;
+
+    public FavoriteIdCache(FavoriteTrackRepository favoriteTrackRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${favorites.id-cache.max-users:10000}") long maxUsers,
+                           @Value("${favorites.id-cache.idle:1h}") Duration idle) {
+        this.favoriteTrackRepository = favoriteTrackRepository;
+        this.trackIdsByUser = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idle)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trackIdsByUser, "favorite-ids");
+    }
+
+    public boolean contains(User user, String trackId) {
+        return trackIds(user).contains(trackId);
+    }
+
+    /** Read-only view of the user's favorited track ids. */
+    public Set<String> trackIds(User user) {
+        return Collections.unmodifiableSet(trackIdsByUser.get(user.getId(), id -> {
+            Set<String> ids = ConcurrentHashMap.newKeySet();
+            ids.addAll(favoriteTrackRepository.findTrackIdsByUser(user));
+            return ids;
+        }));
+    }
+
+    public void added(User user, Collection<String> trackIds) {
+        afterCommit(() -> trackIdsByUser.asMap().computeIfPresent(user.getId(), (id, ids) -> {
+            ids.addAll(trackIds);
+            return ids;
+        }));
+    }
+
+    public void removed(User user, Collection<String> trackIds) {
+        afterCommit(() -> trackIdsByUser.asMap().computeIfPresent(user.getId(), (id, ids) -> {
+            ids.removeAll(trackIds);
+            return ids;
+        }));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -1,16 +1,34 @@
 package com.mzika.service;
 
+import com.mzika.exception.UnknownTrackException;
 import com.mzika.model.dto.FavoriteTrackDTO;
+import com.mzika.model.dto.FavoritesAddResultDTO;
+import com.mzika.model.dto.FavoritesPageDTO;
+import com.mzika.model.dto.SearchResultDTO;
 import com.mzika.model.dto.TrackDTO;
 import com.mzika.model.entity.FavoriteTrack;
 import com.mzika.model.entity.User;
 import com.mzika.repository.FavoriteTrackRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,60 +36,240 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FavoriteService {
 
+    // Earlier list entries get later timestamps, so newest-first listings keep the input order
+    private static final String INSERT_FAVORITES = """
+            INSERT INTO favorite_tracks (id, user_id, track_id, track_name, artist_name, album_name,
+                album_image_url, duration_ms, popularity, explicit, saved_at)
+            SELECT gen_random_uuid()::text, ?, t.track_id, t.track_name, t.artist_name, t.album_name,
+                t.album_image_url, t.duration_ms, t.popularity, t.explicit,
+                localtimestamp - t.ord * interval '1 microsecond'
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],
+                        ?::integer[], ?::integer[], ?::boolean[])
+                WITH ORDINALITY AS t(track_id, track_name, artist_name, album_name, album_image_url,
+                                     duration_ms, popularity, explicit, ord)
+            ON CONFLICT (user_id, track_id) DO NOTHING
+            RETURNING track_id""";
+
+    private static final String DELETE_FAVORITES = """
+            DELETE FROM favorite_tracks WHERE user_id = ? AND track_id = ANY(?::varchar[])
+            RETURNING track_id""";
+
     private final FavoriteTrackRepository favoriteTrackRepository;
+    private final CatalogService catalogService;
+    private final UserStatsService userStatsService;
+    private final FavoriteIdCache favoriteIdCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersions resourceVersions;
 
     public List<FavoriteTrackDTO> getUserFavorites(User user) {
-        return favoriteTrackRepository.findByUserOrderBySavedAtDesc(user)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return favoriteTrackRepository.findDTOsByUser(user, Limit.unlimited());
+    }
+
+    /**
+     * One page of favorites, newest first. {@code cursor} is the {@code nextCursor}
+     * of the previous page, or null for the first one.
+     */
+    public FavoritesPageDTO getFavoritesPage(User user, String cursor, int limit) {
+        // Read one extra row to learn whether another page follows
+        Limit fetch = Limit.of(limit + 1);
+        List<FavoriteTrackDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = favoriteTrackRepository.findDTOsByUser(user, fetch);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = favoriteTrackRepository.findDTOsByUserAfter(user,
+                    LocalDateTime.parse(position[0]), position[1], fetch);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<FavoriteTrackDTO> items = hasMore ? rows.subList(0, limit) : rows;
+        FavoriteTrackDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return FavoritesPageDTO.builder()
+                .items(items)
+                .nextCursor(hasMore ? encodeCursor(last) : null)
+                .build();
     }
 
+    /** Throws {@link UnknownTrackException} for a track sent by id only that the catalog does not know. */
     @Transactional
     public FavoriteTrackDTO addFavorite(User user, TrackDTO track) {
-        // Check if already favorited
-        if (favoriteTrackRepository.existsByUserAndTrackId(user, track.getId())) {
-            return toDTO(favoriteTrackRepository
-                    .findByUserAndTrackId(user, track.getId()).get());
+        if (track.getId() == null) {
+            throw new IllegalArgumentException("Track id is required");
+        }
+        if (!addFavorites(user, List.of(track)).getRejected().isEmpty()) {
+            throw new UnknownTrackException(track.getId());
+        }
+        return favoriteTrackRepository.findByUserAndTrackId(user, track.getId())
+                .map(this::toDTO)
+                .orElseThrow(() -> new UnknownTrackException(track.getId()));
+    }
+
+    /**
+     * Favorites all given tracks with one statement; tracks already favorited are
+     * left untouched. Tracks sent by id only are resolved from the catalog, and the
+     * ones it does not know are returned as rejected rather than dropped.
+     */
+    @Transactional
+    public FavoritesAddResultDTO addFavorites(User user, List<TrackDTO> tracks) {
+        // Clients may only send ids; fill in the rest from the local catalog
+        List<String> unresolved = tracks.stream()
+                .filter(t -> t.getId() != null && t.getName() == null)
+                .map(TrackDTO::getId)
+                .toList();
+        Map<String, TrackDTO> catalog = unresolved.isEmpty() ? Map.of()
+                : catalogService.findTracks(unresolved).stream()
+                .collect(Collectors.toMap(TrackDTO::getId, t -> t));
+
+        Map<String, TrackDTO> byId = new LinkedHashMap<>();
+        Set<String> rejected = new LinkedHashSet<>();
+        for (TrackDTO track : tracks) {
+            TrackDTO resolved = track.getName() == null ? catalog.get(track.getId()) : track;
+            if (resolved != null && resolved.getId() != null) {
+                byId.putIfAbsent(resolved.getId(), resolved);
+            } else if (track.getId() != null) {
+                rejected.add(track.getId());
+            }
+        }
+        if (!rejected.isEmpty()) {
+            log.info("Rejected {} unknown tracks for user: {}", rejected.size(), user.getSpotifyId());
+        }
+        if (byId.isEmpty()) {
+            return FavoritesAddResultDTO.builder()
+                    .added(List.of())
+                    .rejected(List.copyOf(rejected))
+                    .build();
+        }
+
+        List<TrackDTO> rows = new ArrayList<>(byId.values());
+        List<String> added = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_FAVORITES);
+            ps.setString(1, user.getId());
+            ps.setArray(2, con.createArrayOf("varchar", column(rows, TrackDTO::getId)));
+            ps.setArray(3, con.createArrayOf("varchar", column(rows, TrackDTO::getName)));
+            ps.setArray(4, con.createArrayOf("varchar", column(rows, this::artistName)));
+            ps.setArray(5, con.createArrayOf("varchar", column(rows, this::albumName)));
+            ps.setArray(6, con.createArrayOf("varchar", column(rows, this::albumImageUrl)));
+            ps.setArray(7, con.createArrayOf("integer", column(rows, TrackDTO::getDurationMs)));
+            ps.setArray(8, con.createArrayOf("integer", column(rows, TrackDTO::getPopularity)));
+            ps.setArray(9, con.createArrayOf("boolean", column(rows, TrackDTO::getExplicit)));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+
+        if (!added.isEmpty()) {
+            userStatsService.favoritesChanged(user, added.size());
+            favoriteIdCache.added(user, added);
+            resourceVersions.bump(user.getId(), ResourceVersions.Resource.FAVORITES);
+        }
+        log.info("Added {} favorite tracks for user: {}", added.size(), user.getSpotifyId());
+        return FavoritesAddResultDTO.builder()
+                .added(added)
+                .rejected(List.copyOf(rejected))
+                .build();
+    }
+
+    @Transactional
+    public void removeFavorite(User user, String trackId) {
+        removeFavorites(user, List.of(trackId));
+    }
+
+    /** Removes all given track ids with one statement, returning those that were favorites. */
+    @Transactional
+    public List<String> removeFavorites(User user, Collection<String> trackIds) {
+        if (trackIds.isEmpty()) {
+            return List.of();
+        }
+        List<String> removed = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_FAVORITES);
+            ps.setString(1, user.getId());
+            ps.setArray(2, con.createArrayOf("varchar", trackIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+
+        if (!removed.isEmpty()) {
+            userStatsService.favoritesChanged(user, -removed.size());
+            favoriteIdCache.removed(user, removed);
+            resourceVersions.bump(user.getId(), ResourceVersions.Resource.FAVORITES);
+        }
+        log.info("Removed {} favorite tracks for user: {}", removed.size(), user.getSpotifyId());
+        return removed;
+    }
+
+    public boolean isFavorite(User user, String trackId) {
+        return favoriteIdCache.contains(user, trackId);
+    }
+
+    /**
+     * Copy of {@code results} with each track's favorite flag set for this user.
+     * Results may be shared through the search cache, so they are never modified.
+     */
+    public SearchResultDTO withFavoriteFlags(User user, SearchResultDTO results) {
+        if (results == null || results.getTracks() == null) {
+            return results;
+        }
+        Set<String> favorites = favoriteIdCache.trackIds(user);
+        List<TrackDTO> tracks = results.getTracks().stream()
+                .map(t -> t.toBuilder().isFavorite(t.getId() != null && favorites.contains(t.getId())).build())
+                .toList();
+        return results.toBuilder().tracks(tracks).build();
+    }
+
+    public Set<String> getFavoriteIds(User user) {
+        return favoriteIdCache.trackIds(user);
+    }
+
+    /** Favorite flag for each requested track id, in request order. */
+    public Map<String, Boolean> areFavorites(User user, Collection<String> trackIds) {
+        Set<String> favorites = favoriteIdCache.trackIds(user);
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        for (String trackId : trackIds) {
+            result.put(trackId, trackId != null && favorites.contains(trackId));
         }
+        return result;
+    }
+
+    private Object[] column(List<TrackDTO> rows, Function<TrackDTO, ?> value) {
+        return rows.stream().map(value).toArray();
+    }
 
-        String artistName = track.getArtists() != null && !track.getArtists().isEmpty()
+    private String artistName(TrackDTO track) {
+        return track.getArtists() != null && !track.getArtists().isEmpty()
                 ? track.getArtists().stream()
                 .map(a -> a.getName())
                 .collect(Collectors.joining(", "))
                 : "Unknown Artist";
+    }
+
+    private String albumName(TrackDTO track) {
+        return track.getAlbum() != null ? track.getAlbum().getName() : null;
+    }
 
-        String albumImageUrl = track.getAlbum() != null &&
+    private String albumImageUrl(TrackDTO track) {
+        return track.getAlbum() != null &&
                 track.getAlbum().getImages() != null &&
                 !track.getAlbum().getImages().isEmpty()
                 ? track.getAlbum().getImages().get(0).getUrl()
                 : null;
-
-        FavoriteTrack favorite = FavoriteTrack.builder()
-                .user(user)
-                .trackId(track.getId())
-                .trackName(track.getName())
-                .artistName(artistName)
-                .albumName(track.getAlbum() != null ? track.getAlbum().getName() : null)
-                .albumImageUrl(albumImageUrl)
-                .durationMs(track.getDurationMs())
-                .popularity(track.getPopularity())
-                .explicit(track.getExplicit())
-                .build();
-
-        FavoriteTrack saved = favoriteTrackRepository.save(favorite);
-        log.info("Added favorite track: {} for user: {}", track.getName(), user.getSpotifyId());
-        return toDTO(saved);
     }
 
-    @Transactional
-    public void removeFavorite(User user, String trackId) {
-        favoriteTrackRepository.deleteByUserAndTrackId(user, trackId);
-        log.info("Removed favorite track: {} for user: {}", trackId, user.getSpotifyId());
+    private String encodeCursor(FavoriteTrackDTO last) {
+        String position = last.getSavedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
-    public boolean isFavorite(User user, String trackId) {
-        return favoriteTrackRepository.existsByUserAndTrackId(user, trackId);
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
     }
 
     private FavoriteTrackDTO toDTO(FavoriteTrack favorite) {
@@ -0,0 +1,37 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.dto.PlaylistDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Last successfully fetched playlists per Spotify user, served while Spotify is failing.
+ * Only fresh fetches are stored, so serving an entry never extends its lifetime.
+ */
+@Component
+public class LastKnownPlaylists {
+
+    private final Cache<String, List<PlaylistDTO>> playlists;
+
+    public LastKnownPlaylists(@Value("${spotify.playlists-fallback.max-size:10000}") long maxSize,
+                              @Value("${spotify.playlists-fallback.ttl:24h}") Duration ttl) {
+        this.playlists = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public void put(String spotifyUserId, List<PlaylistDTO> userPlaylists) {
+        playlists.put(spotifyUserId, userPlaylists);
+    }
+
+    /** Returns the last fetched playlists, or null. */
+    public List<PlaylistDTO> get(String spotifyUserId) {
+        return playlists.getIfPresent(spotifyUserId);
+    }
+}
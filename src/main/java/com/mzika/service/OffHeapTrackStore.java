@@ -0,0 +1,360 @@
+package com.mzika.service;
+
+import com.mzika.model.dto.AlbumDTO;
+import com.mzika.model.dto.ArtistDTO;
+import com.mzika.model.dto.ImageDTO;
+import com.mzika.model.dto.TrackDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Track metadata kept outside the Java heap, keyed by Spotify track id.
+ *
+ * <p>Records are appended to a direct buffer in a compact binary form and located
+ * through an open-addressing index of packed (offset, length) longs plus the id
+ * hash of each slot, so the heap holds twelve bytes per slot instead of a graph of
+ * DTOs, strings and lists, and probing only reads the buffer on a hash match.
+ * Rewriting a track appends a new record; when the buffer fills up, live records
+ * are compacted in place, and if that still leaves it mostly full the store starts
+ * over. It is a cache: callers must cope with misses.
+ */
+@Component
+@Slf4j
+public class OffHeapTrackStore {
+
+    private static final int OFFSET_BITS = 40;
+    private static final long LENGTH_MASK = (1L << (64 - OFFSET_BITS)) - 1;
+    private static final long EMPTY = 0;
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int capacity;
+    private final ByteBuffer data;
+
+    private long[] slots;
+    private int[] hashes;
+    private int size;
+
+    public OffHeapTrackStore(@Value("${spotify.track-store.capacity:64MB}") DataSize capacity,
+                             MeterRegistry meterRegistry) {
+        this.capacity = (int) Math.min(Integer.MAX_VALUE, capacity.toBytes());
+        // The only direct allocation: compaction and resets reuse this buffer
+        this.data = ByteBuffer.allocateDirect(this.capacity);
+        this.slots = new long[INITIAL_SLOTS];
+        this.hashes = new int[INITIAL_SLOTS];
+
+        Gauge.builder("track.store.memory", this, s -> s.readLocked(() -> (long) s.data.position()))
+                .tag("area", "offheap").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("track.store.memory", this,
+                        s -> s.readLocked(() -> (long) s.slots.length * (Long.BYTES + Integer.BYTES)))
+                .tag("area", "heap").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("track.store.tracks", this, s -> s.readLocked(() -> (long) s.size))
+                .register(meterRegistry);
+    }
+
+    public void put(TrackDTO track) {
+        if (track.getId() == null) {
+            return;
+        }
+        byte[] id = track.getId().getBytes(StandardCharsets.UTF_8);
+        if (id.length > 0xFFFF) {
+            return;
+        }
+        byte[] record;
+        try {
+            record = encode(id, track);
+        } catch (UncheckedIOException e) {
+            // A string too long for the record format; the track is simply not stored
+            log.debug("Not storing track {}: {}", track.getId(), e.getMessage());
+            return;
+        }
+        if (record.length > LENGTH_MASK || record.length > capacity / 4) {
+            return;
+        }
+        int hash = mix(track.getId().hashCode());
+
+        lock.writeLock().lock();
+        try {
+            if (data.remaining() < record.length) {
+                makeRoom(record.length);
+            }
+            int offset = data.position();
+            data.put(record);
+
+            int slot = find(hash, id);
+            if (slots[slot] == EMPTY) {
+                size++;
+            }
+            slots[slot] = pack(offset, record.length);
+            hashes[slot] = hash;
+            if (size * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(List<TrackDTO> tracks) {
+        if (tracks != null) {
+            tracks.forEach(this::put);
+        }
+    }
+
+    /** Returns a fresh DTO for the track, or null when it is not stored. */
+    public TrackDTO get(String trackId) {
+        byte[] id = trackId.getBytes(StandardCharsets.UTF_8);
+        int hash = mix(trackId.hashCode());
+        byte[] record = readLocked(() -> {
+            long location = slots[find(hash, id)];
+            return location == EMPTY ? null : read(location);
+        });
+        return record == null ? null : decode(record);
+    }
+
+    // ---- index ----
+
+    /** Slot holding the id, or the empty slot where it would go. Needs a lock. */
+    private int find(int hash, byte[] id) {
+        int mask = slots.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            long location = slots[i];
+            if (location == EMPTY || (hashes[i] == hash && idEquals(location, id))) {
+                return i;
+            }
+        }
+    }
+
+    /** Compares the id at the start of the record without copying it out of the buffer. */
+    private boolean idEquals(long location, byte[] id) {
+        int offset = offset(location);
+        if ((data.getShort(offset) & 0xFFFF) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (data.get(offset + 2 + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newLength) {
+        long[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new long[newLength];
+        hashes = new int[newLength];
+        int mask = newLength - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                // Ids are unique, so only a free slot is needed
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void makeRoom(int needed) {
+        // Slide live records down in offset order; superseded versions are overwritten.
+        // A record only ever moves to a lower offset, so it is read before anything
+        // can be written over it.
+        long[] live = new long[size];
+        int count = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != EMPTY) {
+                live[count++] = (long) offset(slots[i]) << 32 | i;
+            }
+        }
+        Arrays.sort(live, 0, count);
+
+        int end = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (int) live[i];
+            long location = slots[slot];
+            int length = (int) (location & LENGTH_MASK);
+            if (offset(location) != end) {
+                data.put(end, read(location));
+                slots[slot] = pack(end, length);
+            }
+            end += length;
+        }
+        data.clear().position(end);
+
+        if (data.remaining() < Math.max(needed, capacity / 4)) {
+            log.info("Off-heap track store is full with {} tracks, starting over", size);
+            data.clear();
+            slots = new long[INITIAL_SLOTS];
+            hashes = new int[INITIAL_SLOTS];
+            size = 0;
+        }
+    }
+
+    private byte[] read(long location) {
+        byte[] record = new byte[(int) (location & LENGTH_MASK)];
+        data.get(offset(location), record);
+        return record;
+    }
+
+    private <T> T readLocked(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long pack(int offset, int length) {
+        // Offset 0 with length 0 would look empty, but records are never empty
+        return ((long) offset << (64 - OFFSET_BITS)) | length;
+    }
+
+    private static int offset(long location) {
+        return (int) (location >>> (64 - OFFSET_BITS));
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // ---- record format ----
+
+    private static byte[] encode(byte[] id, TrackDTO track) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            // Plain UTF-8 behind a length, so the index can compare ids in place
+            out.writeShort(id.length);
+            out.write(id);
+            writeString(out, track.getName());
+            writeString(out, track.getUri());
+            writeInt(out, track.getDurationMs());
+            out.writeByte(track.getExplicit() == null ? -1 : track.getExplicit() ? 1 : 0);
+            writeInt(out, track.getPopularity());
+            writeString(out, track.getPreviewUrl());
+
+            List<ArtistDTO> artists = track.getArtists() != null ? track.getArtists() : List.of();
+            out.writeShort(artists.size());
+            for (ArtistDTO artist : artists) {
+                writeString(out, artist.getId());
+                writeString(out, artist.getName());
+                writeString(out, artist.getUri());
+            }
+
+            AlbumDTO album = track.getAlbum();
+            out.writeBoolean(album != null);
+            if (album != null) {
+                writeString(out, album.getId());
+                writeString(out, album.getName());
+                writeString(out, album.getUri());
+                writeString(out, album.getReleaseDate());
+                writeInt(out, album.getTotalTracks());
+                List<ImageDTO> images = album.getImages() != null ? album.getImages() : List.of();
+                out.writeShort(images.size());
+                for (ImageDTO image : images) {
+                    writeString(out, image.getUrl());
+                    writeInt(out, image.getWidth());
+                    writeInt(out, image.getHeight());
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TrackDTO decode(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            byte[] id = new byte[in.readUnsignedShort()];
+            in.readFully(id);
+            TrackDTO.TrackDTOBuilder track = TrackDTO.builder()
+                    .id(new String(id, StandardCharsets.UTF_8))
+                    .name(readString(in))
+                    .uri(readString(in))
+                    .durationMs(readInt(in));
+            byte explicit = in.readByte();
+            track.explicit(explicit < 0 ? null : explicit == 1)
+                    .popularity(readInt(in))
+                    .previewUrl(readString(in));
+
+            int artistCount = in.readUnsignedShort();
+            List<ArtistDTO> artists = new ArrayList<>(artistCount);
+            for (int i = 0; i < artistCount; i++) {
+                artists.add(ArtistDTO.builder()
+                        .id(readString(in))
+                        .name(readString(in))
+                        .uri(readString(in))
+                        .build());
+            }
+            track.artists(artists);
+
+            if (in.readBoolean()) {
+                AlbumDTO.AlbumDTOBuilder album = AlbumDTO.builder()
+                        .id(readString(in))
+                        .name(readString(in))
+                        .uri(readString(in))
+                        .releaseDate(readString(in))
+                        .totalTracks(readInt(in));
+                int imageCount = in.readUnsignedShort();
+                List<ImageDTO> images = new ArrayList<>(imageCount);
+                for (int i = 0; i < imageCount; i++) {
+                    images.add(ImageDTO.builder()
+                            .url(readString(in))
+                            .width(readInt(in))
+                            .height(readInt(in))
+                            .build());
+                }
+                track.album(album.images(images).build());
+            }
+            return track.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
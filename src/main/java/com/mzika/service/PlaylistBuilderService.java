@@ -0,0 +1,150 @@
+package com.mzika.service;
+
+import com.mzika.exception.SpotifyUnavailableException;
+import com.mzika.model.dto.PlaylistBuildResultDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills a new playlist with any number of tracks in Spotify-sized chunks.
+ *
+ * <p>Chunks are sent one at a time, in input order, each inserted at an explicit
+ * position: the number of tracks added so far. The build is sequential: each
+ * chunk's body is built just before it is sent, from the confirmed position.
+ * Inserts are not idempotent, so a failed chunk is only resent when Spotify cannot
+ * have applied it: the call was refused before it was sent, or the playlist size
+ * shows it did not land. A chunk that fails for good is reported and the build
+ * goes on with the next one, which takes its position.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlaylistBuilderService {
+
+    private static final int CHUNK_SIZE = 100;
+
+    private final SpotifyService spotifyService;
+
+    @Value("${playlists.builder.max-attempts:3}")
+    private int maxAttempts;
+
+    public PlaylistBuildResultDTO addTracks(String playlistId, List<String> trackUris, String accessToken) {
+        long start = System.currentTimeMillis();
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < trackUris.size(); i += CHUNK_SIZE) {
+            chunks.add(trackUris.subList(i, Math.min(i + CHUNK_SIZE, trackUris.size())));
+        }
+
+        int added = 0;
+        List<Integer> failedChunks = new ArrayList<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            PreparedChunk chunk = prepare(chunks, i, added);
+            Outcome outcome = send(playlistId, chunk, accessToken);
+            if (outcome == Outcome.ADDED) {
+                added += chunk.size();
+                log.info("Playlist {}: {}/{} tracks added", playlistId, added, trackUris.size());
+            } else if (outcome == Outcome.FAILED) {
+                failedChunks.add(i);
+            } else {
+                // Without knowing whether it landed, no later position can be trusted
+                log.error("Stopping build of playlist {}: chunk {} may or may not have landed", playlistId, i);
+                for (int j = i; j < chunks.size(); j++) {
+                    failedChunks.add(j);
+                }
+                break;
+            }
+        }
+
+        return PlaylistBuildResultDTO.builder()
+                .playlistId(playlistId)
+                .requestedTracks(trackUris.size())
+                .tracksAdded(added)
+                .chunks(chunks.size())
+                .failedChunks(failedChunks)
+                .durationMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    private PreparedChunk prepare(List<List<String>> chunks, int index, int position) {
+        List<String> uris = chunks.get(index);
+        return new PreparedChunk(index, position, uris.size(), spotifyService.addTracksBody(uris, position));
+    }
+
+    private Outcome send(String playlistId, PreparedChunk chunk, String accessToken) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                spotifyService.addTracksToPlaylist(playlistId, chunk.body(), chunk.size(), accessToken);
+                return Outcome.ADDED;
+            } catch (RuntimeException e) {
+                if (isClientError(e)) {
+                    log.error("Spotify rejected chunk {} of playlist {}: {}", chunk.index(), playlistId, e.getMessage());
+                    return Outcome.FAILED;
+                }
+                if (SpotifyUnavailableException.findIn(e).isEmpty()) {
+                    // No answer or a server error: the insert may have been applied anyway
+                    Outcome landed = checkLanded(playlistId, chunk, accessToken);
+                    if (landed != Outcome.FAILED) {
+                        return landed;
+                    }
+                }
+                if (attempt >= maxAttempts) {
+                    log.error("Giving up on chunk {} of playlist {} after {} attempts",
+                            chunk.index(), playlistId, attempt);
+                    return Outcome.FAILED;
+                }
+
+                log.warn("Retrying chunk {} of playlist {} (attempt {}): {}",
+                        chunk.index(), playlistId, attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return Outcome.FAILED;
+                }
+            }
+        }
+    }
+
+    /** ADDED or FAILED (not applied, safe to resend) from the playlist size; UNKNOWN otherwise. */
+    private Outcome checkLanded(String playlistId, PreparedChunk chunk, String accessToken) {
+        int size;
+        try {
+            size = spotifyService.getPlaylistTrackCount(playlistId, accessToken);
+        } catch (RuntimeException e) {
+            log.warn("Could not read the size of playlist {}: {}", playlistId, e.getMessage());
+            return Outcome.UNKNOWN;
+        }
+        if (size == chunk.position() + chunk.size()) {
+            log.info("Chunk {} of playlist {} landed despite the failed call", chunk.index(), playlistId);
+            return Outcome.ADDED;
+        }
+        if (size == chunk.position()) {
+            return Outcome.FAILED;
+        }
+        log.warn("Playlist {} has {} tracks, expected {} or {}",
+                playlistId, size, chunk.position(), chunk.position() + chunk.size());
+        return Outcome.UNKNOWN;
+    }
+
+    private static boolean isClientError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum Outcome { ADDED, FAILED, UNKNOWN }
+
+    private record PreparedChunk(int index, int position, int size, String body) {
+    }
+}
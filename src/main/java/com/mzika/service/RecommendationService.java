@@ -1,14 +1,25 @@
 package com.mzika.service;
 
+import com.mzika.exception.SpotifyUnavailableException;
+import com.mzika.exception.UnknownTrackException;
+import com.mzika.model.dto.ArtistDTO;
 import com.mzika.model.dto.MoodRequestDTO;
 import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +27,14 @@ import java.util.Random;
 public class RecommendationService {
 
     private final SpotifyService spotifyService;
+    private final AsyncTaskExecutor spotifyTaskExecutor;
+    private final CatalogService catalogService;
+
+    @Value("${recommendations.mood.fan-out:true}")
+    private boolean fanOut;
+
+    @Value("${recommendations.mood.latency-budget:1500ms}")
+    private Duration latencyBudget;
 
     // Mood to search query mapping
     private static final Map<String, String[]> MOOD_QUERIES = new HashMap<>();
@@ -71,15 +90,103 @@ public class RecommendationService {
         String era = request.getEra();
         Integer limit = request.getLimit() != null ? request.getLimit() : 20;
 
+        log.info("Getting recommendations for mood: {}, genre: {}, era: {}", mood, genre, era);
+
+        if (fanOut && MOOD_QUERIES.containsKey(mood)) {
+            return fanOutByMood(mood, genre, era, limit, accessToken);
+        }
+
         // Build smart search query
         String query = buildQuery(mood, genre, era);
-
-        log.info("Getting recommendations for mood: {}, genre: {}, era: {}", mood, genre, era);
         log.info("Built query: {}", query);
 
         return spotifyService.searchTracks(query, accessToken, limit, 0);
     }
 
+    /**
+     * Searches every query variant of the mood in parallel and merges whatever
+     * arrived within the latency budget. Tracks found by more variants rank
+     * first, then by popularity. Stragglers are not waited for; they still finish
+     * in the background and warm the search cache for the next request. If every
+     * variant failed, the first failure is rethrown so rate-limit and availability
+     * errors keep their mapping; if none answered within the budget the call is
+     * reported as unavailable rather than returning an empty result.
+     */
+    private SearchResultDTO fanOutByMood(String mood, String genre, String era,
+                                         Integer limit, String accessToken) {
+        List<CompletableFuture<SearchResultDTO>> searches = Arrays.stream(MOOD_QUERIES.get(mood))
+                .map(variant -> buildQuery(variant, genre, era))
+                .map(query -> CompletableFuture.supplyAsync(
+                        () -> spotifyService.searchTracks(query, accessToken, limit, 0),
+                        spotifyTaskExecutor))
+                .toList();
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(searches.toArray(CompletableFuture[]::new));
+        try {
+            all.get(latencyBudget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Partial results are fine, handled below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<SearchResultDTO> results = completedResults(searches);
+        if (results.isEmpty()) {
+            if (all.isDone()) {
+                throw new RuntimeException("Failed to get mood recommendations", firstFailure(searches));
+            }
+            log.warn("Mood fan-out for {}: no variant answered within {}ms", mood, latencyBudget.toMillis());
+            throw new SpotifyUnavailableException("No mood recommendations within the latency budget",
+                    latencyBudget);
+        }
+
+        Map<String, TrackDTO> tracksById = new LinkedHashMap<>();
+        Map<String, Integer> hitsById = new HashMap<>();
+        for (SearchResultDTO result : results) {
+            for (TrackDTO track : result.getTracks()) {
+                tracksById.putIfAbsent(track.getId(), track);
+                hitsById.merge(track.getId(), 1, Integer::sum);
+            }
+        }
+
+        List<TrackDTO> ranked = tracksById.values().stream()
+                .sorted(Comparator.<TrackDTO>comparingInt(t -> hitsById.get(t.getId())).reversed()
+                        .thenComparing(t -> t.getPopularity() != null ? t.getPopularity() : 0,
+                                Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+
+        log.info("Mood fan-out for {}: {}/{} variants in budget, {} unique tracks",
+                mood, results.size(), searches.size(), tracksById.size());
+
+        return SearchResultDTO.builder()
+                .tracks(ranked)
+                .total(ranked.size())
+                .limit(limit)
+                .offset(0)
+                .build();
+    }
+
+    private List<SearchResultDTO> completedResults(List<CompletableFuture<SearchResultDTO>> searches) {
+        return searches.stream()
+                .filter(f -> f.isDone() && !f.isCompletedExceptionally())
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    private Throwable firstFailure(List<CompletableFuture<SearchResultDTO>> searches) {
+        for (CompletableFuture<SearchResultDTO> search : searches) {
+            try {
+                search.join();
+            } catch (CompletionException e) {
+                return e.getCause() != null ? e.getCause() : e;
+            } catch (CancellationException e) {
+                return e;
+            }
+        }
+        return null;
+    }
+
     private String buildQuery(String mood, String genre, String era) {
         StringBuilder query = new StringBuilder();
 
@@ -112,6 +219,17 @@ public class RecommendationService {
         return query.toString();
     }
 
+    /** Similar tracks for a track known only by id, with its name and artist taken from the catalog. */
+    public SearchResultDTO getSimilarTracks(String trackId, String accessToken, Integer limit) {
+        TrackDTO track = catalogService.findTrack(trackId)
+                .orElseThrow(() -> new UnknownTrackException(trackId));
+        String artistName = track.getArtists() == null ? "" : track.getArtists().stream()
+                .map(ArtistDTO::getName)
+                .findFirst()
+                .orElse("");
+        return getSimilarTracks(track.getName(), artistName, accessToken, limit);
+    }
+
     public SearchResultDTO getSimilarTracks(String trackName,
                                             String artistName,
                                             String accessToken,
@@ -0,0 +1,113 @@
+package com.mzika.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-user versions of the resources the SPA polls, used to build ETags that are
+ * checked with one primary-key read instead of loading the resource.
+ *
+ * <p>Versions live in {@code resource_versions}, so every instance hands out the
+ * same tag for the same data. A bump runs in the transaction that changes the data,
+ * which makes the two visible together; since tags are read before the data, a
+ * reader can see new data under an old tag for a moment, never the reverse.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource { FAVORITES, HISTORY, PLAYLISTS }
+
+    private static final String ALL_USERS = "*";
+    private static final String ALL_RESOURCES = "ALL";
+
+    private static final String BUMP = """
+            INSERT INTO resource_versions (user_id, resource, version)
+            VALUES (?, ?, nextval('resource_version_seq'))
+            ON CONFLICT (user_id, resource) DO UPDATE SET version = EXCLUDED.version""";
+
+    private static final String READ = "SELECT resource, version FROM resource_versions WHERE user_id IN (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long playlistsBucketMillis;
+
+    public ResourceVersions(JdbcTemplate jdbcTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${http.etag.playlists-bucket:60s}") Duration playlistsBucket) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.playlistsBucketMillis = playlistsBucket.toMillis();
+    }
+
+    /**
+     * Strong ETag over the given resources of a user. {@code variant} covers anything
+     * else the representation depends on (paging parameters, media type...).
+     */
+    public String etag(String userId, Object variant, Resource... resources) {
+        Map<Resource, Long> versions = new EnumMap<>(Resource.class);
+        long[] global = {0};
+        jdbcTemplate.query(READ, rs -> {
+            String resource = rs.getString(1);
+            if (ALL_RESOURCES.equals(resource)) {
+                global[0] = rs.getLong(2);
+            } else {
+                versions.put(Resource.valueOf(resource), rs.getLong(2));
+            }
+        }, userId, ALL_USERS);
+
+        long[] state = new long[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            // Never bumped: the data is whatever it was before versions were tracked
+            state[i] = versions.getOrDefault(resources[i], 0L);
+        }
+        return "\"" + Long.toHexString(global[0]) + "-" + Arrays.toString(state).replace(" ", "")
+                + "-" + Integer.toHexString(Objects.hashCode(variant)) + "\"";
+    }
+
+    /**
+     * Playlists live on Spotify, so their tag also changes every bucket to bound how
+     * long a client may keep a copy that was edited outside the app.
+     */
+    public String playlistsEtag(String userId, Object variant) {
+        long bucket = System.currentTimeMillis() / playlistsBucketMillis;
+        return etag(userId, Arrays.asList(variant, bucket), Resource.PLAYLISTS);
+    }
+
+    /** Call inside the transaction that changes the resource. */
+    public void bump(String userId, Resource resource) {
+        jdbcTemplate.update(BUMP, userId, resource.name());
+    }
+
+    /** Bumps one resource for many users with a single batch. */
+    public void bump(Collection<String> userIds, Resource resource) {
+        List<Object[]> rows = userIds.stream()
+                .sorted()
+                .map(userId -> new Object[]{userId, resource.name()})
+                .toList();
+        jdbcTemplate.batchUpdate(BUMP, rows);
+    }
+
+    /** Invalidates every tag handed out so far, e.g. after a bulk retention purge. */
+    public void bumpAll() {
+        jdbcTemplate.update(BUMP, ALL_USERS, ALL_RESOURCES);
+    }
+
+    /** {@link WebRequest#checkNotModified(String)} plus a count of the bodies it saved. */
+    public boolean notModified(WebRequest webRequest, String etag, String endpoint) {
+        boolean notModified = webRequest.checkNotModified(etag);
+        meterRegistry.counter("http.etag", "endpoint", endpoint,
+                "result", notModified ? "not_modified" : "modified").increment();
+        return notModified;
+    }
+}
@@ -0,0 +1,186 @@
+package com.mzika.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of search_history in shape: creates the next few
+ * months ahead of time and drops whole partitions once they fall out of the
+ * retention window, which is far cheaper than deleting rows.
+ *
+ * <p>Expiry runs on one instance at a time (advisory lock) and takes the parent
+ * table's ACCESS EXCLUSIVE lock only for the detach and drop, giving up after a
+ * short lock timeout rather than queueing every search behind a long reader; the
+ * next run retries. DETACH ... CONCURRENTLY is not an option while the table has a
+ * default partition. Expired rows are subtracted from user_stats in the same
+ * transaction, so total_searches keeps counting the history that is still there.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchHistoryRetention {
+
+    private static final String PARTITION_PREFIX = "search_history_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'search_history'::regclass""";
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('search_history_retention'))";
+
+    private static final String DEFAULT_PARTITION = "search_history_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceVersions resourceVersions;
+    private final UserStatsService userStatsService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${search-history.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${search-history.partitions.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${search-history.partitions.lock-timeout:2s}")
+    private Duration lockTimeout;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${search-history.partitions.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        Map<YearMonth, String> partitions = listPartitions();
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!partitions.containsKey(month)) {
+                createPartition(month);
+            }
+        }
+
+        LocalDate cutoff = LocalDate.now().minusMonths(retentionMonths);
+        Timestamp cutoffTime = Timestamp.valueOf(cutoff.atStartOfDay());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        int dropped = 0;
+        for (Map.Entry<YearMonth, String> partition : partitions.entrySet()) {
+            if (!partition.getKey().plusMonths(1).atDay(1).isAfter(cutoff)) {
+                String name = partition.getValue();
+                try {
+                    Boolean done = transactionTemplate.execute(status -> dropPartition(name));
+                    if (!Boolean.TRUE.equals(done)) {
+                        log.info("Search history retention already running elsewhere");
+                        break;
+                    }
+                    dropped++;
+                } catch (Exception e) {
+                    log.warn("Could not drop search history partition {}, retrying next run: {}",
+                            name, e.getMessage());
+                }
+            }
+        }
+
+        long purged = 0;
+        try {
+            Long count = transactionTemplate.execute(status -> purgeDefault(cutoffTime));
+            purged = count != null ? count : 0;
+        } catch (Exception e) {
+            log.warn("Could not purge the default search history partition, retrying next run: {}",
+                    e.getMessage());
+        }
+
+        // Any user's history may have changed; cheaper than tracking whose
+        if (dropped > 0 || purged > 0) {
+            resourceVersions.bumpAll();
+        }
+    }
+
+    /** False when another instance holds the retention lock. */
+    private boolean dropPartition(String name) {
+        if (!tryLock()) {
+            return false;
+        }
+        userStatsService.searchesExpired(countByUser("SELECT user_id, count(*) FROM " + name
+                + " GROUP BY user_id"));
+        jdbcTemplate.execute("ALTER TABLE search_history DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+        log.info("Dropped search history partition {}", name);
+        return true;
+    }
+
+    private long purgeDefault(Timestamp cutoff) {
+        if (!tryLock()) {
+            return 0;
+        }
+        // Searches are stamped with the current time, so no new row can fall before the cutoff
+        Map<String, Long> expired = countByUser("SELECT user_id, count(*) FROM " + DEFAULT_PARTITION
+                + " WHERE searched_at < ? GROUP BY user_id", cutoff);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        int purged = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE searched_at < ?", cutoff);
+        userStatsService.searchesExpired(expired);
+        log.info("Purged {} expired rows from the default search history partition", purged);
+        return purged;
+    }
+
+    private boolean tryLock() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + lockTimeout.toMillis() + "ms'");
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class));
+    }
+
+    private Map<String, Long> countByUser(String sql, Object... args) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        }, args);
+        return counts;
+    }
+
+    private Map<YearMonth, String> listPartitions() {
+        Map<YearMonth, String> partitions = new HashMap<>();
+        for (String name : jdbcTemplate.queryForList(LIST_PARTITIONS, String.class)) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            try {
+                partitions.put(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX), name);
+            } catch (DateTimeParseException e) {
+                // search_history_default and anything else not named by month
+            }
+        }
+        return partitions;
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name
+                    + " PARTITION OF search_history FOR VALUES FROM ('" + month.atDay(1)
+                    + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            log.info("Created search history partition {}", name);
+        } catch (Exception e) {
+            // Typically rows for that month already sit in the default partition
+            log.error("Failed to create search history partition {}: {}", name, e.getMessage());
+        }
+    }
+}
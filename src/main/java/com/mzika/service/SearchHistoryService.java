@@ -1,5 +1,6 @@
 package com.mzika.service;
 
+import com.mzika.model.dto.TrackDTO;
 import com.mzika.model.entity.SearchHistory;
 import com.mzika.model.entity.User;
 import com.mzika.repository.SearchHistoryRepository;
@@ -8,45 +9,73 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SearchHistoryService {
 
+    /** How many of a search's first results are kept with it. */
+    public static final int TOP_TRACKS = 5;
+
     private final SearchHistoryRepository searchHistoryRepository;
+    private final SearchHistoryWriter searchHistoryWriter;
+    private final UserStatsService userStatsService;
+    private final TrendingQueryService trendingQueryService;
+    private final ResourceVersions resourceVersions;
+    private final CatalogService catalogService;
 
-    @Transactional
-    public void saveSearch(User user, String query, int resultsCount) {
-        SearchHistory history = SearchHistory.builder()
-                .user(user)
-                .query(query)
-                .resultsCount(resultsCount)
-                .build();
-        searchHistoryRepository.save(history);
+    /** Queues the search; it is written in the next batch rather than in this request. */
+    public void saveSearch(User user, String query, int resultsCount, List<TrackDTO> results) {
+        List<String> topTrackIds = results == null ? List.of() : results.stream()
+                .map(TrackDTO::getId)
+                .filter(Objects::nonNull)
+                .limit(TOP_TRACKS)
+                .toList();
+        searchHistoryWriter.enqueue(user.getId(), query, resultsCount, topTrackIds);
+        trendingQueryService.record(user, query);
     }
 
     public List<SearchHistory> getRecentSearches(User user) {
         return searchHistoryRepository.findTop10ByUserOrderBySearchedAtDesc(user);
     }
 
-    public Map<String, Object> getStats(User user) {
-        Map<String, Object> stats = new LinkedHashMap<>();
-        stats.put("totalSearches", searchHistoryRepository.countByUser(user));
-
-        List<Object[]> topQueries = searchHistoryRepository.findTopQueriesByUser(user);
-        stats.put("topQueries", topQueries.stream()
-                .map(row -> Map.of("query", row[0], "count", row[1]))
-                .toList());
+    /**
+     * Resolves the top tracks of the given searches from the catalog in one lookup,
+     * keyed by track id. Tracks the catalog no longer has are simply absent.
+     */
+    public Map<String, TrackDTO> resolveTopTracks(List<SearchHistory> searches) {
+        Set<String> trackIds = new LinkedHashSet<>();
+        for (SearchHistory search : searches) {
+            if (search.getTopTrackIds() != null) {
+                trackIds.addAll(search.getTopTrackIds());
+            }
+        }
+        if (trackIds.isEmpty()) {
+            return Map.of();
+        }
+        return catalogService.findTracks(trackIds).stream()
+                .collect(Collectors.toMap(TrackDTO::getId, Function.identity(), (a, b) -> a));
+    }
 
-        return stats;
+    public List<Map<String, Object>> getTopQueries(User user) {
+        return trendingQueryService.topQueries(user, 5);
     }
 
     @Transactional
     public void clearHistory(User user) {
+        // Write queued searches first so none reappear after the delete
+        searchHistoryWriter.flush();
         searchHistoryRepository.deleteByUser(user);
+        userStatsService.searchesCleared(user);
+        trendingQueryService.forget(user);
+        resourceVersions.bump(user.getId(), ResourceVersions.Resource.HISTORY);
     }
 }
\ No newline at end of file
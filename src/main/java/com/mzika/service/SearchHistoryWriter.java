@@ -0,0 +1,176 @@
+package com.mzika.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for search history. Searches are queued in memory and
+ * written with JDBC batch inserts once {@code batch-size} rows are waiting or
+ * every {@code flush-interval}, whichever comes first, so a search never waits
+ * on a Postgres transaction.
+ *
+ * <p>When the queue is full the {@code overflow} policy applies: {@code drop}
+ * discards the row (history is best-effort), {@code caller-runs} makes the
+ * searching thread flush a batch itself before enqueueing.
+ */
+@Component
+@Slf4j
+public class SearchHistoryWriter {
+
+    private static final String INSERT_SEARCH = """
+            INSERT INTO search_history (id, user_id, query, results_count, top_track_ids, searched_at)
+            VALUES (?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserStatsService userStatsService;
+    private final ResourceVersions resourceVersions;
+    private final TaskExecutor flushExecutor;
+    private final BlockingQueue<PendingSearch> pending;
+    private final int batchSize;
+    private final boolean callerRuns;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    public SearchHistoryWriter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               UserStatsService userStatsService,
+                               ResourceVersions resourceVersions,
+                               @Qualifier("searchHistoryFlushExecutor") TaskExecutor flushExecutor,
+                               MeterRegistry meterRegistry,
+                               @Value("${search-history.writer.capacity:10000}") int capacity,
+                               @Value("${search-history.writer.batch-size:200}") int batchSize,
+                               @Value("${search-history.writer.overflow:drop}") String overflow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userStatsService = userStatsService;
+        this.resourceVersions = resourceVersions;
+        this.flushExecutor = flushExecutor;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.callerRuns = "caller-runs".equalsIgnoreCase(overflow);
+
+        this.flushTimer = meterRegistry.timer("search_history.writer.flush");
+        this.written = meterRegistry.counter("search_history.writer.rows", "result", "written");
+        this.dropped = meterRegistry.counter("search_history.writer.rows", "result", "dropped");
+        this.failed = meterRegistry.counter("search_history.writer.rows", "result", "failed");
+        meterRegistry.gauge("search_history.writer.pending", pending, Collection::size);
+    }
+
+    public void enqueue(String userId, String query, int resultsCount, List<String> topTrackIds) {
+        PendingSearch search = new PendingSearch(userId, query, resultsCount,
+                topTrackIds.toArray(String[]::new), LocalDateTime.now());
+
+        if (!pending.offer(search)) {
+            if (callerRuns) {
+                flushBatch(true);
+                if (pending.offer(search)) {
+                    return;
+                }
+            }
+            dropped.increment();
+            return;
+        }
+
+        if (pending.size() >= batchSize && !flushLock.isLocked()) {
+            flushExecutor.execute(() -> flushBatch(false));
+        }
+    }
+
+    /** Writes everything queued so far; callers that need read-your-writes use this. */
+    @Scheduled(fixedDelayString = "${search-history.writer.flush-interval:1s}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            // Bounded by what is queued now, so steady traffic cannot keep us here
+            for (int remaining = pending.size(); remaining > 0; ) {
+                int drained = writeBatch();
+                if (drained == 0) {
+                    break;
+                }
+                remaining -= drained;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushBatch(boolean wait) {
+        if (wait) {
+            flushLock.lock();
+        } else if (!flushLock.tryLock()) {
+            // A flush is already running and will pick these rows up
+            return;
+        }
+        try {
+            writeBatch();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int writeBatch() {
+        List<PendingSearch> batch = new ArrayList<>(batchSize);
+        pending.drainTo(batch, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> rows = batch.stream()
+                .map(s -> new Object[]{UUID.randomUUID().toString(), s.userId(), s.query(),
+                        s.resultsCount(), s.topTrackIds(), Timestamp.valueOf(s.searchedAt())})
+                .toList();
+
+        Map<String, Integer> searchesByUser = batch.stream()
+                .collect(Collectors.toMap(PendingSearch::userId, s -> 1, Integer::sum));
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SEARCH, rows);
+                userStatsService.recordSearches(searchesByUser);
+                resourceVersions.bump(searchesByUser.keySet(), ResourceVersions.Resource.HISTORY);
+            });
+            written.increment(rows.size());
+        } catch (Exception e) {
+            failed.increment(rows.size());
+            log.error("Failed to write {} search history rows: {}", rows.size(), e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return batch.size();
+    }
+
+    private record PendingSearch(String userId, String query, int resultsCount, String[] topTrackIds,
+                                 LocalDateTime searchedAt) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the JSON encoding of shared search results, so a cache hit is answered
+ * by copying bytes instead of serializing the DTO tree again.
+ *
+ * <p>Entries are keyed by result identity with weak keys: they live exactly as
+ * long as the search cache keeps the result. Encoding uses the application's
+ * {@link JsonMapper}, the one Spring MVC writes every other response with, so
+ * property order and inclusion follow its configuration. Responses carry per-user
+ * favorite flags, so each track is stored encoded both ways and the matching copy
+ * is picked at write time. For the same reason the bytes are not stored pre-compressed.
+ */
+@Component
+public class SearchResponseEncoder {
+
+    private static final byte[] EMPTY_TRACKS = "\"tracks\":[]".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonMapper jsonMapper;
+    private final Cache<SearchResultDTO, Encoded> encoded;
+    private final Counter hits;
+    private final Counter misses;
+
+    public SearchResponseEncoder(JsonMapper jsonMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spotify.search-cache.max-size:10000}") long maxSize) {
+        this.jsonMapper = jsonMapper;
+        this.encoded = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(maxSize)
+                .build();
+        this.hits = meterRegistry.counter("search.response.encoded", "result", "hit");
+        this.misses = meterRegistry.counter("search.response.encoded", "result", "miss");
+    }
+
+    /** JSON for {@code results} with each track's isFavorite taken from {@code favorites}. */
+    public byte[] encode(SearchResultDTO results, Set<String> favorites) {
+        if (results.getTracks() == null) {
+            return jsonMapper.writeValueAsBytes(results);
+        }
+
+        Encoded entry = encoded.getIfPresent(results);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = encode(results);
+            encoded.put(results, entry);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(entry.size());
+        out.writeBytes(entry.head());
+        for (int i = 0; i < entry.tracks().size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Fragment track = entry.tracks().get(i);
+            boolean favorite = track.id() != null && favorites.contains(track.id());
+            out.writeBytes(favorite ? track.favorite() : track.notFavorite());
+        }
+        out.writeBytes(entry.tail());
+        return out.toByteArray();
+    }
+
+    private Encoded encode(SearchResultDTO results) {
+        List<Fragment> tracks = new ArrayList<>(results.getTracks().size());
+        int size = 0;
+        for (TrackDTO track : results.getTracks()) {
+            Fragment fragment = new Fragment(track.getId(),
+                    jsonMapper.writeValueAsBytes(track.toBuilder().isFavorite(true).build()),
+                    jsonMapper.writeValueAsBytes(track.toBuilder().isFavorite(false).build()));
+            tracks.add(fragment);
+            size += Math.max(fragment.favorite().length, fragment.notFavorite().length) + 1;
+        }
+
+        // Split the result without tracks around its empty array, wherever the mapper put it
+        byte[] frame = jsonMapper.writeValueAsBytes(results.toBuilder().tracks(List.of()).build());
+        int at = indexOf(frame, EMPTY_TRACKS);
+        if (at < 0) {
+            throw new IllegalStateException("Search result JSON has no tracks array");
+        }
+        int split = at + EMPTY_TRACKS.length - 1;
+        byte[] head = Arrays.copyOfRange(frame, 0, split);
+        byte[] tail = Arrays.copyOfRange(frame, split, frame.length);
+        return new Encoded(head, tracks, tail, size + frame.length);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        outer:
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private record Fragment(String id, byte[] favorite, byte[] notFavorite) {
+    }
+
+    private record Encoded(byte[] head, List<Fragment> tracks, byte[] tail, int size) {
+    }
+}
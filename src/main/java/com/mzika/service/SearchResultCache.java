@@ -0,0 +1,164 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded TTL cache for Spotify search results. Concurrent lookups of the same
+ * (query, limit, offset) share one in-flight upstream call; failed calls are not cached.
+ * A longer-lived last-known-good tier backs the fallback used while Spotify is failing;
+ * it only keeps track ids on the heap and the tracks themselves in {@link OffHeapTrackStore}.
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    private final AsyncCache<SearchKey, SearchResultDTO> cache;
+    private final Cache<SearchKey, StaleResult> lastKnownGood;
+    private final OffHeapTrackStore trackStore;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public SearchResultCache(@Value("${spotify.search-cache.max-size:10000}") long maxSize,
+                             @Value("${spotify.search-cache.ttl:10m}") Duration ttl,
+                             @Value("${spotify.search-cache.stale-max-size:50000}") long staleMaxSize,
+                             @Value("${spotify.search-cache.stale-ttl:24h}") Duration staleTtl,
+                             OffHeapTrackStore trackStore,
+                             MeterRegistry meterRegistry) {
+        this.trackStore = trackStore;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        this.lastKnownGood = Caffeine.newBuilder()
+                .maximumSize(staleMaxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+        this.hits = meterRegistry.counter("spotify.search.cache", "result", "hit");
+        this.misses = meterRegistry.counter("spotify.search.cache", "result", "miss");
+        this.coalesced = meterRegistry.counter("spotify.search.cache", "result", "coalesced");
+        meterRegistry.gauge("spotify.search.cache.size", cache, c -> c.synchronous().estimatedSize());
+    }
+
+    public SearchResultDTO get(String query, Integer limit, Integer offset, Supplier<SearchResultDTO> loader) {
+        SearchKey key = SearchKey.of(query, limit, offset);
+
+        CompletableFuture<SearchResultDTO> created = new CompletableFuture<>();
+        CompletableFuture<SearchResultDTO> existing = cache.asMap().putIfAbsent(key, created);
+
+        if (existing != null) {
+            if (existing.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+            }
+            return join(existing);
+        }
+
+        misses.increment();
+        SearchResultDTO result;
+        try {
+            result = loader.get();
+            created.complete(result);
+        } catch (Throwable e) {
+            // Caffeine drops exceptionally completed futures, so the next caller retries.
+            // Errors too: a future left pending would block every later caller of this key.
+            created.completeExceptionally(e);
+            throw e;
+        }
+
+        // Best effort: the fresh result is already served and cached either way
+        try {
+            rememberLastKnownGood(key, result);
+        } catch (RuntimeException e) {
+            log.warn("Could not keep a stale copy of search '{}': {}", key.query(), e.getMessage());
+        }
+        return result;
+    }
+
+    /** Returns the last successfully loaded result for this search, or null. */
+    public SearchResultDTO getStale(String query, Integer limit, Integer offset) {
+        StaleResult stale = lastKnownGood.getIfPresent(SearchKey.of(query, limit, offset));
+        if (stale == null) {
+            return null;
+        }
+
+        List<TrackDTO> tracks = new ArrayList<>(stale.trackIds().size());
+        for (String trackId : stale.trackIds()) {
+            TrackDTO track = trackStore.get(trackId);
+            if (track == null) {
+                // The track store has recycled it; a partial page would not match its total
+                return null;
+            }
+            tracks.add(track);
+        }
+
+        return SearchResultDTO.builder()
+                .tracks(tracks)
+                .total(stale.total())
+                .limit(stale.limit())
+                .offset(stale.offset())
+                .build();
+    }
+
+    private void rememberLastKnownGood(SearchKey key, SearchResultDTO result) {
+        if (result == null || result.getTracks() == null) {
+            return;
+        }
+        List<String> trackIds = new ArrayList<>(result.getTracks().size());
+        for (TrackDTO track : result.getTracks()) {
+            if (track.getId() != null) {
+                trackStore.put(track);
+                trackIds.add(track.getId());
+            }
+        }
+        lastKnownGood.put(key, new StaleResult(List.copyOf(trackIds),
+                result.getTotal(), result.getLimit(), result.getOffset()));
+    }
+
+    private SearchResultDTO join(CompletableFuture<SearchResultDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record StaleResult(List<String> trackIds, Integer total, Integer limit, Integer offset) {
+    }
+
+    private record SearchKey(String query, int limit, int offset) {
+
+        static SearchKey of(String query, Integer limit, Integer offset) {
+            String normalized = query == null ? "" : query.trim()
+                    .replaceAll("\\s+", " ")
+                    .toLowerCase(Locale.ROOT);
+            return new SearchKey(normalized,
+                    limit != null ? limit : 20,
+                    offset != null ? offset : 0);
+        }
+    }
+}
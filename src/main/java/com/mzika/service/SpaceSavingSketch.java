@@ -0,0 +1,81 @@
+package com.mzika.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving top-k counter: tracks at most {@code capacity} keys, and a new key
+ * evicts the current minimum and inherits its count. Any key whose true frequency
+ * exceeds {@code total / capacity} is guaranteed to be present, and no count is
+ * under-estimated. Memory is bounded by the capacity, not by how many keys are seen.
+ */
+final class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final TreeSet<Slot> byCount = new TreeSet<>(
+            Comparator.comparingLong((Slot s) -> s.count).thenComparingLong(s -> s.seq));
+    private long nextSeq;
+
+    SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void offer(String key, long increment) {
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            if (slots.size() < capacity) {
+                slot = new Slot(key, 0);
+            } else {
+                Slot min = byCount.pollFirst();
+                slots.remove(min.key);
+                slot = new Slot(key, min.count);
+            }
+            slots.put(key, slot);
+        } else {
+            byCount.remove(slot);
+        }
+        slot.count += increment;
+        slot.seq = nextSeq++;
+        byCount.add(slot);
+    }
+
+    /** Adds every tracked (key, count) pair to {@code totals}. */
+    synchronized void addTo(Map<String, Long> totals) {
+        for (Slot slot : slots.values()) {
+            totals.merge(slot.key, slot.count, Long::sum);
+        }
+    }
+
+    synchronized List<Map.Entry<String, Long>> top(int k) {
+        List<Map.Entry<String, Long>> top = new ArrayList<>(Math.min(k, slots.size()));
+        for (Slot slot : byCount.descendingSet()) {
+            if (top.size() >= k) {
+                break;
+            }
+            top.add(Map.entry(slot.key, slot.count));
+        }
+        return top;
+    }
+
+    synchronized void clear() {
+        slots.clear();
+        byCount.clear();
+    }
+
+    private static final class Slot {
+
+        final String key;
+        long count;
+        long seq;
+
+        Slot(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
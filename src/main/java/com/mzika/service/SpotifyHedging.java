@@ -0,0 +1,258 @@
+package com.mzika.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for tail latency: when a call has not answered by the observed
+ * latency percentile, an identical second call is started and whichever returns
+ * first wins; the other is cancelled. Hedges are capped to a fraction of calls so
+ * a slow Spotify is not hit with double the traffic. When the task pool is
+ * saturated the call is made unhedged on the request thread.
+ */
+@Component
+@Slf4j
+public class SpotifyHedging {
+
+    private static final int MIN_SAMPLES = 32;
+    private static final int RATE_WINDOW = 1000;
+
+    private final AsyncTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRate;
+
+    private final LatencyTracker latencies = new LatencyTracker(1024);
+    private int calls;
+    private int hedges;
+
+    public SpotifyHedging(@Qualifier("spotifyTaskExecutor") AsyncTaskExecutor executor,
+                          MeterRegistry meterRegistry,
+                          @Value("${spotify.hedging.enabled:false}") boolean enabled,
+                          @Value("${spotify.hedging.percentile:0.95}") double percentile,
+                          @Value("${spotify.hedging.min-delay:50ms}") Duration minDelay,
+                          @Value("${spotify.hedging.max-rate:0.05}") double maxHedgeRate) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxHedgeRate = maxHedgeRate;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        long delayNanos = latencies.percentile(percentile, MIN_SAMPLES);
+        if (delayNanos < 0) {
+            // Not enough history yet to know what "slow" means
+            return new Attempt<>(call).run();
+        }
+
+        countCall();
+        Thread caller = Thread.currentThread();
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Attempt<T> primaryAttempt = new Attempt<>(call);
+        Attempt<T> hedgeAttempt = new Attempt<>(call);
+        Future<T> primary = trySubmit(completion, primaryAttempt, caller);
+        if (primary == null) {
+            // Saturated pool: nothing could race the call, so make it here without a hedge
+            record("unhedged_saturated");
+            return primaryAttempt.run();
+        }
+
+        Future<T> hedge = null;
+        try {
+            Future<T> first = completion.poll(Math.max(delayNanos, minDelayNanos), TimeUnit.NANOSECONDS);
+            if (first != null) {
+                record("not_hedged");
+                return getResult(first);
+            }
+
+            if (!tryAcquireHedge()) {
+                record("budget_exhausted");
+                return getResult(primary);
+            }
+
+            hedge = trySubmit(completion, hedgeAttempt, caller);
+            if (hedge == null) {
+                record("hedge_saturated");
+                return getResult(primary);
+            }
+
+            Future<T> winner = completion.take();
+            try {
+                T result = getResult(winner);
+                record(winner == primary ? "primary_won" : "hedge_won");
+                return result;
+            } catch (RuntimeException e) {
+                // The first to finish failed; the other call may still succeed
+                Future<T> other = completion.take();
+                T result = getResult(other);
+                record(other == primary ? "primary_won" : "hedge_won");
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for Spotify", e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            // A cancelled loser is sampled too, or the slow calls would drop out of the percentile
+            primaryAttempt.finish();
+            hedgeAttempt.finish();
+        }
+    }
+
+    /**
+     * Submits the attempt, or returns null when the pool cannot take it. The Spotify
+     * task pool runs rejected tasks on the caller, so such a run is turned into a refusal.
+     */
+    private <T> Future<T> trySubmit(ExecutorCompletionService<T> completion, Attempt<T> attempt, Thread caller) {
+        Future<T> future;
+        try {
+            future = completion.submit(() -> attempt.runOffThread(caller));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        if (future.isDone()) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CallerRunRefused) {
+                    return null;
+                }
+            } catch (InterruptedException | CancellationException e) {
+                // Not a refusal; the caller sees the outcome when it collects the future
+            }
+        }
+        return future;
+    }
+
+    private <T> T getResult(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private synchronized void countCall() {
+        calls++;
+        if (calls >= RATE_WINDOW) {
+            // Decay so the cap follows recent traffic instead of all-time totals
+            calls /= 2;
+            hedges /= 2;
+        }
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (hedges >= maxHedgeRate * calls) {
+            return false;
+        }
+        hedges++;
+        return true;
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("spotify.hedging", "outcome", outcome).increment();
+    }
+
+    /** One run of the call, sampled once: when it finishes, or when it loses the race. */
+    private final class Attempt<T> {
+
+        private final Supplier<T> call;
+        private final AtomicBoolean sampled = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile long startNanos;
+
+        Attempt(Supplier<T> call) {
+            this.call = call;
+        }
+
+        T run() {
+            startNanos = System.nanoTime();
+            started = true;
+            try {
+                return call.get();
+            } finally {
+                finish();
+            }
+        }
+
+        T runOffThread(Thread caller) {
+            if (Thread.currentThread() == caller) {
+                throw new CallerRunRefused();
+            }
+            return run();
+        }
+
+        /** For a call still running this is a lower bound of its latency, which is what the percentile needs. */
+        void finish() {
+            if (started && sampled.compareAndSet(false, true)) {
+                latencies.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static final class CallerRunRefused extends RuntimeException {
+
+        CallerRunRefused() {
+            super("Spotify task pool is saturated", null, false, false);
+        }
+    }
+
+    /** Fixed-size ring of recent latencies; the percentile is recomputed every few samples. */
+    private static final class LatencyTracker {
+
+        private final long[] samples;
+        private final AtomicLong count = new AtomicLong();
+        private volatile long cachedPercentile = -1;
+        private volatile long cachedAt;
+
+        LatencyTracker(int size) {
+            this.samples = new long[size];
+        }
+
+        void record(long nanos) {
+            long index = count.getAndIncrement();
+            samples[(int) (index % samples.length)] = nanos;
+        }
+
+        long percentile(double p, int minSamples) {
+            long total = count.get();
+            if (total < minSamples) {
+                return -1;
+            }
+            if (cachedPercentile >= 0 && total - cachedAt < 64) {
+                return cachedPercentile;
+            }
+            long[] copy = Arrays.copyOf(samples, (int) Math.min(total, samples.length));
+            Arrays.sort(copy);
+            long value = copy[Math.min(copy.length - 1, (int) (p * copy.length))];
+            cachedPercentile = value;
+            cachedAt = total;
+            return value;
+        }
+    }
+}
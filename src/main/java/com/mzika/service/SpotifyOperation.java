@@ -0,0 +1,12 @@
+package com.mzika.service;
+
+/**
+ * Groups of Spotify calls that get their own bulkhead and circuit breaker,
+ * so trouble in one (e.g. search) does not starve the others.
+ */
+public enum SpotifyOperation {
+    SEARCH,
+    RECOMMENDATIONS,
+    PLAYLISTS,
+    TOKEN_REFRESH
+}
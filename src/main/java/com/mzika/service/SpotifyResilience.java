@@ -0,0 +1,210 @@
+package com.mzika.service;
+
+import com.mzika.exception.SpotifyUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkheads and circuit breakers around Spotify calls. Each {@link SpotifyOperation}
+ * may only occupy a bounded number of request threads, and repeated upstream
+ * failures open its breaker so callers get the last known good result (or a fast
+ * 503) instead of waiting on a sick Spotify.
+ */
+@Component
+@Slf4j
+public class SpotifyResilience {
+
+    private final Map<SpotifyOperation, Semaphore> bulkheads = new EnumMap<>(SpotifyOperation.class);
+    private final Map<SpotifyOperation, CircuitBreaker> breakers = new EnumMap<>(SpotifyOperation.class);
+    private final Duration bulkheadWait;
+    private final Duration openDuration;
+    private final MeterRegistry meterRegistry;
+
+    public SpotifyResilience(@Value("${spotify.resilience.bulkhead.search:20}") int searchBulkhead,
+                             @Value("${spotify.resilience.bulkhead.recommendations:10}") int recommendationsBulkhead,
+                             @Value("${spotify.resilience.bulkhead.playlists:10}") int playlistsBulkhead,
+                             @Value("${spotify.resilience.bulkhead.token-refresh:5}") int tokenRefreshBulkhead,
+                             @Value("${spotify.resilience.bulkhead-wait:500ms}") Duration bulkheadWait,
+                             @Value("${spotify.resilience.failure-threshold:5}") int failureThreshold,
+                             @Value("${spotify.resilience.open-duration:30s}") Duration openDuration,
+                             MeterRegistry meterRegistry) {
+        this.bulkheadWait = bulkheadWait;
+        this.openDuration = openDuration;
+        this.meterRegistry = meterRegistry;
+
+        bulkheads.put(SpotifyOperation.SEARCH, new Semaphore(searchBulkhead));
+        bulkheads.put(SpotifyOperation.RECOMMENDATIONS, new Semaphore(recommendationsBulkhead));
+        bulkheads.put(SpotifyOperation.PLAYLISTS, new Semaphore(playlistsBulkhead));
+        bulkheads.put(SpotifyOperation.TOKEN_REFRESH, new Semaphore(tokenRefreshBulkhead));
+
+        for (SpotifyOperation operation : SpotifyOperation.values()) {
+            CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openDuration.toNanos());
+            breakers.put(operation, breaker);
+            meterRegistry.gauge("spotify.resilience.circuit.open",
+                    Tags.of("operation", operation.name()),
+                    breaker, b -> b.isOpen() ? 1 : 0);
+        }
+    }
+
+    public <T> T execute(SpotifyOperation operation, Supplier<T> call) {
+        return execute(operation, call, null);
+    }
+
+    /**
+     * Consults {@code fallback} for a failure that escaped {@link #execute(SpotifyOperation, Supplier)}.
+     * For callers that cache what they load: running the fallback here, outside their
+     * loader, keeps stale results out of the cache. Client errors are rethrown as is.
+     */
+    public <T> T fallback(SpotifyOperation operation, RuntimeException failure, Supplier<T> fallback) {
+        if (isClientError(failure)) {
+            throw failure;
+        }
+        String reason = SpotifyUnavailableException.findIn(failure).isPresent() ? "refused" : "upstream_error";
+        return fallbackOrThrow(operation, fallback, reason, failure);
+    }
+
+    /**
+     * Runs {@code call} inside the operation's bulkhead and breaker. When the call is
+     * refused or fails, {@code fallback} (if any) is consulted for a stale result; the
+     * original failure is rethrown if it has none.
+     */
+    public <T> T execute(SpotifyOperation operation, Supplier<T> call, Supplier<T> fallback) {
+        CircuitBreaker breaker = breakers.get(operation);
+        if (!breaker.tryAcquire()) {
+            return fallbackOrThrow(operation, fallback, "circuit_open",
+                    new SpotifyUnavailableException("Spotify " + operation + " circuit is open", openDuration));
+        }
+
+        Semaphore bulkhead = bulkheads.get(operation);
+        boolean admitted;
+        try {
+            admitted = bulkhead.tryAcquire(bulkheadWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            breaker.onIgnored();
+            return fallbackOrThrow(operation, fallback, "bulkhead_full",
+                    new SpotifyUnavailableException("Too many concurrent Spotify " + operation + " calls",
+                            Duration.ofSeconds(1)));
+        }
+
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (SpotifyUnavailableException.findIn(e).isPresent()) {
+                breaker.onIgnored();
+                return fallbackOrThrow(operation, fallback, "throttled", e);
+            }
+            if (isClientError(e)) {
+                breaker.onIgnored();
+                throw e;
+            }
+            if (breaker.onFailure()) {
+                log.warn("Opening Spotify {} circuit for {}s after repeated failures",
+                        operation, openDuration.toSeconds());
+            }
+            return fallbackOrThrow(operation, fallback, "upstream_error", e);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private <T> T fallbackOrThrow(SpotifyOperation operation, Supplier<T> fallback,
+                                  String reason, RuntimeException failure) {
+        if (fallback == null) {
+            throw failure;
+        }
+        T stale = fallback.get();
+        meterRegistry.counter("spotify.resilience.fallback",
+                "operation", operation.name(),
+                "reason", reason,
+                "served", String.valueOf(stale != null)).increment();
+        if (stale != null) {
+            log.info("Serving last known good Spotify {} result ({})", operation, reason);
+            return stale;
+        }
+        throw failure;
+    }
+
+    /** Client errors (bad token, bad query) say nothing about Spotify's health. */
+    private boolean isClientError(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Consecutive-failure breaker: opens after {@code threshold} upstream failures,
+     * then lets a single probe through once {@code openNanos} have elapsed.
+     */
+    private static final class CircuitBreaker {
+
+        private final int threshold;
+        private final long openNanos;
+
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean probeInFlight;
+
+        CircuitBreaker(int threshold, long openNanos) {
+            this.threshold = threshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (!open) {
+                return true;
+            }
+            if (!probeInFlight && System.nanoTime() - openedAt >= openNanos) {
+                probeInFlight = true;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            open = false;
+            probeInFlight = false;
+        }
+
+        synchronized void onIgnored() {
+            probeInFlight = false;
+        }
+
+        /** Returns true when this failure opened the circuit. */
+        synchronized boolean onFailure() {
+            consecutiveFailures++;
+            boolean wasOpen = open;
+            if (probeInFlight || consecutiveFailures >= threshold) {
+                open = true;
+                openedAt = System.nanoTime();
+            }
+            probeInFlight = false;
+            return open && !wasOpen;
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.mzika.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mzika.model.dto.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-streaming decoder for Spotify payloads. Reads the response body straight
+ * into DTOs without building an intermediate JsonNode tree. Artists, albums and
+ * image lists go through {@link TrackMetadataInterner}, so the parsed objects may
+ * be shared with other responses.
+ */
+@Component
+@RequiredArgsConstructor
+public class SpotifyResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final TrackMetadataInterner interner;
+
+    /** Parses a {@code /search?type=track} response. */
+    public SearchResultDTO parseSearchResult(InputStream body) throws IOException {
+        List<TrackDTO> tracks = new ArrayList<>();
+        int total = 0;
+        int limit = 0;
+        int offset = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected search response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (!"tracks".equals(field) || parser.currentToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String pageField = parser.currentName();
+                    parser.nextToken();
+                    switch (pageField) {
+                        case "items" -> readTracks(parser, tracks);
+                        case "total" -> total = parser.getValueAsInt();
+                        case "limit" -> limit = parser.getValueAsInt();
+                        case "offset" -> offset = parser.getValueAsInt();
+                        default -> parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        return SearchResultDTO.builder()
+                .tracks(tracks)
+                .total(total)
+                .limit(limit)
+                .offset(offset)
+                .build();
+    }
+
+    /** Parses a {@code /recommendations} response, returning its tracks. */
+    public List<TrackDTO> parseRecommendations(InputStream body) throws IOException {
+        List<TrackDTO> tracks = new ArrayList<>();
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected recommendations response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("tracks".equals(field)) {
+                    readTracks(parser, tracks);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return tracks;
+    }
+
+    /** Parses a {@code /me/playlists} page, including the link to the next one. */
+    public PlaylistPageDTO parsePlaylistPage(InputStream body) throws IOException {
+        List<PlaylistDTO> playlists = new ArrayList<>();
+        int total = 0;
+        String next = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected playlists response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "items" -> readPlaylists(parser, playlists);
+                    case "total" -> total = parser.getValueAsInt();
+                    case "next" -> next = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        return PlaylistPageDTO.builder()
+                .items(playlists)
+                .total(total)
+                .next(next)
+                .build();
+    }
+
+    private void readPlaylists(JsonParser parser, List<PlaylistDTO> playlists) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                playlists.add(readPlaylist(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readTracks(JsonParser parser, List<TrackDTO> tracks) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            // Spotify occasionally returns null entries for unavailable tracks
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                tracks.add(readTrack(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private TrackDTO readTrack(JsonParser parser) throws IOException {
+        TrackDTO.TrackDTOBuilder track = TrackDTO.builder();
+        List<ArtistDTO> artists = new ArrayList<>();
+        AlbumDTO album = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> track.id(parser.getValueAsString());
+                case "name" -> track.name(parser.getValueAsString());
+                case "uri" -> track.uri(parser.getValueAsString());
+                case "duration_ms" -> track.durationMs(parser.getValueAsInt());
+                case "explicit" -> track.explicit(parser.getValueAsBoolean());
+                case "popularity" -> track.popularity(parser.getValueAsInt());
+                case "preview_url" -> track.previewUrl(parser.getValueAsString());
+                case "artists" -> readArtists(parser, artists);
+                case "album" -> {
+                    if (parser.currentToken() == JsonToken.START_OBJECT) {
+                        album = readAlbum(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        // Clients expect an album object on every track, as the tree-based parser produced
+        return track.artists(interner.artists(artists))
+                .album(album != null ? album : emptyAlbum())
+                .build();
+    }
+
+    private AlbumDTO emptyAlbum() {
+        return interner.album(AlbumDTO.builder()
+                .id("")
+                .name("")
+                .uri("")
+                .releaseDate("")
+                .totalTracks(0)
+                .images(List.of())
+                .build());
+    }
+
+    private void readArtists(JsonParser parser, List<ArtistDTO> artists) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            ArtistDTO.ArtistDTOBuilder artist = ArtistDTO.builder();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> artist.id(parser.getValueAsString());
+                    case "name" -> artist.name(parser.getValueAsString());
+                    case "uri" -> artist.uri(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            artists.add(artist.build());
+        }
+    }
+
+    private AlbumDTO readAlbum(JsonParser parser) throws IOException {
+        AlbumDTO.AlbumDTOBuilder album = AlbumDTO.builder();
+        List<ImageDTO> images = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> album.id(parser.getValueAsString());
+                case "name" -> album.name(parser.getValueAsString());
+                case "uri" -> album.uri(parser.getValueAsString());
+                case "release_date" -> album.releaseDate(parser.getValueAsString());
+                case "total_tracks" -> album.totalTracks(parser.getValueAsInt());
+                case "images" -> readImages(parser, images);
+                default -> parser.skipChildren();
+            }
+        }
+
+        return interner.album(album.images(interner.images(images)).build());
+    }
+
+    private void readImages(JsonParser parser, List<ImageDTO> images) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            ImageDTO.ImageDTOBuilder image = ImageDTO.builder();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "height" -> image.height(parser.getValueAsInt());
+                    case "width" -> image.width(parser.getValueAsInt());
+                    case "url" -> image.url(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            images.add(image.build());
+        }
+    }
+
+    private PlaylistDTO readPlaylist(JsonParser parser) throws IOException {
+        PlaylistDTO.PlaylistDTOBuilder playlist = PlaylistDTO.builder();
+        List<ImageDTO> images = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> playlist.id(parser.getValueAsString());
+                case "name" -> playlist.name(parser.getValueAsString());
+                case "description" -> playlist.description(parser.getValueAsString());
+                case "uri" -> playlist.uri(parser.getValueAsString());
+                case "public" -> playlist.isPublic(parser.getValueAsBoolean());
+                case "images" -> readImages(parser, images);
+                case "tracks" -> playlist.totalTracks(readNestedInt(parser, "total"));
+                case "owner" -> playlist.ownerName(readNestedString(parser, "display_name"));
+                default -> parser.skipChildren();
+            }
+        }
+
+        return playlist.images(interner.images(images)).build();
+    }
+
+    private int readNestedInt(JsonParser parser, String name) throws IOException {
+        int value = 0;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return value;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                value = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    private String readNestedString(JsonParser parser, String name) throws IOException {
+        String value = null;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return value;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+}
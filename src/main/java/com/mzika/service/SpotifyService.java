@@ -6,14 +6,15 @@ import com.mzika.model.dto.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -23,7 +24,17 @@ public class SpotifyService {
     @Value("${spotify.api.base-url}")
     private String spotifyApiBaseUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${spotify.accounts.token-url:https://accounts.spotify.com/api/token}")
+    private String spotifyTokenUrl;
+
+    private final RestTemplate restTemplate;
+    private final SearchResultCache searchResultCache;
+    private final SpotifyResponseParser responseParser;
+    private final SpotifyResilience resilience;
+    private final SpotifyHedging hedging;
+    private final AsyncTaskExecutor spotifyTaskExecutor;
+    private final CatalogService catalogService;
+    private final LastKnownPlaylists lastKnownPlaylists;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public String getUserProfile(String accessToken) {
@@ -44,12 +55,18 @@ public class SpotifyService {
 
     public SearchResultDTO searchTracks(String query, String accessToken, Integer limit, Integer offset) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+            return searchResultCache.get(query, limit, offset,
+                    () -> resilience.execute(SpotifyOperation.SEARCH,
+                            () -> hedging.call(() -> fetchSearchResults(query, accessToken, limit, offset))));
+        } catch (RuntimeException e) {
+            // Outside the cache loader, so a stale result is neither cached nor re-saved as last known good
+            return resilience.fallback(SpotifyOperation.SEARCH, e,
+                    () -> searchResultCache.getStale(query, limit, offset));
+        }
+    }
 
-            // Build URL with query parameters
-            // New code - use this instead
+    private SearchResultDTO fetchSearchResults(String query, String accessToken, Integer limit, Integer offset) {
+        try {
             String url = spotifyApiBaseUrl + "/search?q=" +
                     java.net.URLEncoder.encode(query, "UTF-8") +
                     "&type=track" +
@@ -58,32 +75,14 @@ public class SpotifyService {
 
             log.info("Searching Spotify for: {}", query);
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            SearchResultDTO result = restTemplate.execute(
                     url,
                     HttpMethod.GET,
-                    entity,
-                    String.class
+                    httpRequest -> httpRequest.getHeaders().setBearerAuth(accessToken),
+                    response -> responseParser.parseSearchResult(response.getBody())
             );
-
-            // Parse JSON response
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode tracksNode = root.path("tracks");
-
-            List<TrackDTO> tracks = new ArrayList<>();
-            JsonNode itemsNode = tracksNode.path("items");
-
-            if (itemsNode.isArray()) {
-                for (JsonNode trackNode : itemsNode) {
-                    tracks.add(parseTrack(trackNode));
-                }
-            }
-
-            return SearchResultDTO.builder()
-                    .tracks(tracks)
-                    .total(tracksNode.path("total").asInt())
-                    .limit(tracksNode.path("limit").asInt())
-                    .offset(tracksNode.path("offset").asInt())
-                    .build();
+            catalogService.record(result.getTracks());
+            return result;
 
         } catch (Exception e) {
             log.error("Error searching tracks: {}", e.getMessage(), e);
@@ -91,70 +90,21 @@ public class SpotifyService {
         }
     }
 
-    private TrackDTO parseTrack(JsonNode trackNode) {
-        // Parse artists
-        List<ArtistDTO> artists = new ArrayList<>();
-        JsonNode artistsNode = trackNode.path("artists");
-        if (artistsNode.isArray()) {
-            for (JsonNode artistNode : artistsNode) {
-                artists.add(ArtistDTO.builder()
-                        .id(artistNode.path("id").asText())
-                        .name(artistNode.path("name").asText())
-                        .uri(artistNode.path("uri").asText())
-                        .build());
-            }
-        }
-
-        // Parse album
-        JsonNode albumNode = trackNode.path("album");
-        List<ImageDTO> images = new ArrayList<>();
-        JsonNode imagesNode = albumNode.path("images");
-        if (imagesNode.isArray()) {
-            for (JsonNode imageNode : imagesNode) {
-                ImageDTO image = new ImageDTO();
-                image.setHeight(imageNode.path("height").asInt());
-                image.setWidth(imageNode.path("width").asInt());
-                image.setUrl(imageNode.path("url").asText());
-                images.add(image);
-            }
-        }
-
-        AlbumDTO album = AlbumDTO.builder()
-                .id(albumNode.path("id").asText())
-                .name(albumNode.path("name").asText())
-                .uri(albumNode.path("uri").asText())
-                .releaseDate(albumNode.path("release_date").asText())
-                .totalTracks(albumNode.path("total_tracks").asInt())
-                .images(images)
-                .build();
-
-        // Build track
-        return TrackDTO.builder()
-                .id(trackNode.path("id").asText())
-                .name(trackNode.path("name").asText())
-                .uri(trackNode.path("uri").asText())
-                .durationMs(trackNode.path("duration_ms").asInt())
-                .explicit(trackNode.path("explicit").asBoolean())
-                .popularity(trackNode.path("popularity").asInt())
-                .previewUrl(trackNode.path("preview_url").isNull() ? null : trackNode.path("preview_url").asText(null))
-                .artists(artists)
-                .album(album)
-                .build();
-    }
-
     @Value("${spring.security.oauth2.client.registration.spotify.client-id}")
     private String clientId;
 
     @Value("${spring.security.oauth2.client.registration.spotify.client-secret}")
     private String clientSecret;
 
-    public SpotifyTokenResponse refreshAccessToken(String refreshToken)
+    public SpotifyTokenResponse refreshAccessToken(String refreshToken) {
+        return resilience.execute(SpotifyOperation.TOKEN_REFRESH, () -> requestTokenRefresh(refreshToken));
+    }
+
+    private SpotifyTokenResponse requestTokenRefresh(String refreshToken)
     {
         try{
             log.info("Refreshing Spotify access token...");
 
-            RestTemplate restTemplate = new RestTemplate();
-
             // Set headers
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
@@ -175,7 +125,7 @@ public class SpotifyService {
                     new HttpEntity<>(body, headers);
 
             ResponseEntity<SpotifyTokenResponse> response = restTemplate.exchange(
-                    "https://accounts.spotify.com/api/token",
+                    spotifyTokenUrl,
                         HttpMethod.POST,
                     entity,
                     SpotifyTokenResponse.class
@@ -190,11 +140,12 @@ public class SpotifyService {
     }
 
     public SearchResultDTO getRecommendations(RecommendationRequestDTO request, String accessToken) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+        return resilience.execute(SpotifyOperation.RECOMMENDATIONS,
+                () -> fetchRecommendations(request, accessToken));
+    }
 
+    private SearchResultDTO fetchRecommendations(RecommendationRequestDTO request, String accessToken) {
+        try {
             // Build URL with all parameters
             StringBuilder url = new StringBuilder(spotifyApiBaseUrl + "/recommendations?");
 
@@ -234,23 +185,13 @@ public class SpotifyService {
 
             log.info("Getting recommendations from Spotify...");
 
-            ResponseEntity<String> response = restTemplate.exchange(
+            List<TrackDTO> tracks = restTemplate.execute(
                     url.toString(),
                     HttpMethod.GET,
-                    entity,
-                    String.class
+                    httpRequest -> httpRequest.getHeaders().setBearerAuth(accessToken),
+                    response -> responseParser.parseRecommendations(response.getBody())
             );
-
-            // Parse response
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode tracksNode = root.path("tracks");
-
-            List<TrackDTO> tracks = new ArrayList<>();
-            if (tracksNode.isArray()) {
-                for (JsonNode trackNode : tracksNode) {
-                    tracks.add(parseTrack(trackNode));
-                }
-            }
+            catalogService.record(tracks);
 
             return SearchResultDTO.builder()
                     .tracks(tracks)
@@ -265,63 +206,112 @@ public class SpotifyService {
         }
     }
 
-    public List<PlaylistDTO> getUserPlaylists(String accessToken) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+    public List<PlaylistDTO> getUserPlaylists(String spotifyUserId, String accessToken) {
+        return resilience.execute(SpotifyOperation.PLAYLISTS,
+                () -> {
+                    List<PlaylistDTO> playlists = fetchUserPlaylists(accessToken);
+                    lastKnownPlaylists.put(spotifyUserId, playlists);
+                    return playlists;
+                },
+                () -> lastKnownPlaylists.get(spotifyUserId));
+    }
 
-            ResponseEntity<String> response = restTemplate.exchange(
+    private List<PlaylistDTO> fetchUserPlaylists(String accessToken) {
+        try {
+            return restTemplate.execute(
                     spotifyApiBaseUrl + "/me/playlists?limit=20",
                     HttpMethod.GET,
-                    entity,
-                    String.class
-            );
+                    httpRequest -> httpRequest.getHeaders().setBearerAuth(accessToken),
+                    response -> responseParser.parsePlaylistPage(response.getBody())
+            ).getItems();
 
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode items = root.path("items");
-
-            List<PlaylistDTO> playlists = new ArrayList<>();
-
-            if (items.isArray()) {
-                for (JsonNode item : items) {
-                    List<ImageDTO> images = new ArrayList<>();
-                    JsonNode imagesNode = item.path("images");
-                    if (imagesNode.isArray()) {
-                        for (JsonNode imageNode : imagesNode) {
-                            ImageDTO image = new ImageDTO();
-                            image.setHeight(imageNode.path("height").asInt());
-                            image.setWidth(imageNode.path("width").asInt());
-                            image.setUrl(imageNode.path("url").asText());
-                            images.add(image);
-                        }
-                    }
-
-                    PlaylistDTO playlist = PlaylistDTO.builder()
-                            .id(item.path("id").asText())
-                            .name(item.path("name").asText())
-                            .description(item.path("description").asText())
-                            .uri(item.path("uri").asText())
-                            .totalTracks(item.path("tracks").path("total").asInt())
-                            .images(images)
-                            .isPublic(item.path("public").asBoolean())
-                            .ownerName(item.path("owner").path("display_name").asText())
-                            .build();
-
-                    playlists.add(playlist);
+        } catch (Exception e) {
+            log.error("Error fetching playlists: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to fetch playlists", e);
+        }
+    }
+
+    /**
+     * Iterates over all of the user's playlists, following Spotify's {@code next}
+     * links. The following page is fetched in the background while the caller
+     * consumes the current one, and only one page is held at a time.
+     */
+    public Iterator<PlaylistDTO> iterateUserPlaylists(String accessToken) {
+        return new PlaylistPager(spotifyApiBaseUrl + "/me/playlists?limit=50", accessToken);
+    }
+
+    private PlaylistPageDTO fetchPlaylistPage(String url, String accessToken) {
+        return resilience.execute(SpotifyOperation.PLAYLISTS, () -> {
+            try {
+                return restTemplate.execute(
+                        url,
+                        HttpMethod.GET,
+                        httpRequest -> httpRequest.getHeaders().setBearerAuth(accessToken),
+                        response -> responseParser.parsePlaylistPage(response.getBody())
+                );
+            } catch (Exception e) {
+                log.error("Error fetching playlist page: {}", e.getMessage(), e);
+                throw new RuntimeException("Failed to fetch playlists", e);
+            }
+        });
+    }
+
+    private final class PlaylistPager implements Iterator<PlaylistDTO> {
+
+        private final String accessToken;
+        private Iterator<PlaylistDTO> current = Collections.emptyIterator();
+        private CompletableFuture<PlaylistPageDTO> nextPage;
+
+        private PlaylistPager(String firstPageUrl, String accessToken) {
+            this.accessToken = accessToken;
+            this.nextPage = prefetch(firstPageUrl);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextPage == null) {
+                    return false;
                 }
+                PlaylistPageDTO page = join(nextPage);
+                nextPage = page.getNext() != null ? prefetch(page.getNext()) : null;
+                current = page.getItems().iterator();
             }
+            return true;
+        }
 
-            return playlists;
+        @Override
+        public PlaylistDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
 
-        } catch (Exception e) {
-            log.error("Error fetching playlists: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to fetch playlists", e);
+        private CompletableFuture<PlaylistPageDTO> prefetch(String url) {
+            return CompletableFuture.supplyAsync(() -> fetchPlaylistPage(url, accessToken), spotifyTaskExecutor);
+        }
+
+        private PlaylistPageDTO join(CompletableFuture<PlaylistPageDTO> page) {
+            try {
+                return page.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
         }
     }
 
     public String createPlaylist(String userId, String name,
                                  String description, String accessToken) {
+        return resilience.execute(SpotifyOperation.PLAYLISTS,
+                () -> requestCreatePlaylist(userId, name, description, accessToken));
+    }
+
+    private String requestCreatePlaylist(String userId, String name,
+                                         String description, String accessToken) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(accessToken);
@@ -359,16 +349,47 @@ public class SpotifyService {
     public void addTracksToPlaylist(String playlistId,
                                     List<String> trackUris,
                                     String accessToken) {
+        addTracksToPlaylist(playlistId, addTracksBody(trackUris, null), trackUris.size(), accessToken);
+    }
+
+    /**
+     * JSON body for adding up to 100 tracks, built ahead of the call. With a
+     * {@code position} they are inserted there, which Spotify rejects when the
+     * playlist is shorter than that position.
+     */
+    public String addTracksBody(List<String> trackUris, Integer position) {
+        try {
+            return objectMapper.writeValueAsString(position != null
+                    ? Map.of("uris", trackUris, "position", position)
+                    : Map.of("uris", trackUris));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to add tracks: " + e.getMessage(), e);
+        }
+    }
+
+    /** Sends a body from {@link #addTracksBody}; not idempotent, so callers must not blindly retry. */
+    public void addTracksToPlaylist(String playlistId,
+                                    String body,
+                                    int trackCount,
+                                    String accessToken) {
+        resilience.execute(SpotifyOperation.PLAYLISTS, () -> {
+            requestAddTracks(playlistId, body, trackCount, accessToken);
+            return null;
+        });
+    }
+
+    private void requestAddTracks(String playlistId,
+                                  String body,
+                                  int trackCount,
+                                  String accessToken) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setBearerAuth(accessToken);
             headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
 
-            // Use ObjectMapper to build JSON string manually
-            String jsonBody = objectMapper.writeValueAsString(Map.of("uris", trackUris));
-            HttpEntity<String> entity = new HttpEntity<>(jsonBody, headers);
+            HttpEntity<String> entity = new HttpEntity<>(body, headers);
 
-            log.info("Adding {} tracks to playlist: {}", trackUris.size(), playlistId);
+            log.info("Adding {} tracks to playlist: {}", trackCount, playlistId);
 
             restTemplate.exchange(
                     spotifyApiBaseUrl + "/playlists/" + playlistId + "/tracks",
@@ -384,4 +405,30 @@ public class SpotifyService {
             throw new RuntimeException("Failed to add tracks: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /** Current number of tracks in a playlist, used to find out whether an unanswered insert landed. */
+    public int getPlaylistTrackCount(String playlistId, String accessToken) {
+        return resilience.execute(SpotifyOperation.PLAYLISTS, () -> {
+            try {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setBearerAuth(accessToken);
+
+                ResponseEntity<String> response = restTemplate.exchange(
+                        spotifyApiBaseUrl + "/playlists/" + playlistId + "?fields=tracks.total",
+                        HttpMethod.GET,
+                        new HttpEntity<>(headers),
+                        String.class
+                );
+
+                JsonNode total = objectMapper.readTree(response.getBody()).path("tracks").path("total");
+                if (!total.isInt()) {
+                    throw new IllegalStateException("No track total in playlist response");
+                }
+                return total.asInt();
+            } catch (Exception e) {
+                log.error("Error reading playlist size: {}", e.getMessage(), e);
+                throw new RuntimeException("Failed to read playlist: " + e.getMessage(), e);
+            }
+        });
+    }
+}
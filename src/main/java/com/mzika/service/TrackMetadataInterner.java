@@ -0,0 +1,64 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.dto.AlbumDTO;
+import com.mzika.model.dto.ArtistDTO;
+import com.mzika.model.dto.ImageDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Canonical instances of the artists, albums and image lists that recur across
+ * parsed Spotify responses, so every cached page holding the same album points at
+ * one copy instead of its own.
+ *
+ * <p>Lookups go by value equality and the tables are size-bounded: an evicted
+ * entry only means the next equal value becomes the new canonical one. Interned
+ * objects are shared between cached results and users: the DTOs are immutable
+ * values and lists are handed out immutable.
+ */
+@Component
+public class TrackMetadataInterner {
+
+    private final Cache<ArtistDTO, ArtistDTO> artists;
+    private final Cache<AlbumDTO, AlbumDTO> albums;
+    private final Cache<List<ImageDTO>, List<ImageDTO>> images;
+
+    public TrackMetadataInterner(@Value("${spotify.intern.max-artists:50000}") long maxArtists,
+                                 @Value("${spotify.intern.max-albums:50000}") long maxAlbums,
+                                 @Value("${spotify.intern.max-image-lists:50000}") long maxImageLists,
+                                 MeterRegistry meterRegistry) {
+        this.artists = Caffeine.newBuilder().maximumSize(maxArtists).recordStats().build();
+        this.albums = Caffeine.newBuilder().maximumSize(maxAlbums).recordStats().build();
+        this.images = Caffeine.newBuilder().maximumSize(maxImageLists).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, artists, "interned.artists");
+        CaffeineCacheMetrics.monitor(meterRegistry, albums, "interned.albums");
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "interned.images");
+    }
+
+    public ArtistDTO artist(ArtistDTO artist) {
+        return artists.get(artist, a -> a);
+    }
+
+    public List<ArtistDTO> artists(List<ArtistDTO> list) {
+        return list.stream().map(this::artist).toList();
+    }
+
+    /** Interns the album together with its image list; images must already be interned. */
+    public AlbumDTO album(AlbumDTO album) {
+        return albums.get(album, a -> a);
+    }
+
+    public List<ImageDTO> images(List<ImageDTO> list) {
+        if (list.isEmpty()) {
+            return List.of();
+        }
+        List<ImageDTO> copy = List.copyOf(list);
+        return images.get(copy, l -> l);
+    }
+}
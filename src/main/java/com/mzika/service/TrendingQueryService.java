@@ -0,0 +1,150 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.entity.User;
+import com.mzika.repository.SearchHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming top queries, per user and across all users, fed by every search.
+ *
+ * <p>Each user gets a small {@link SpaceSavingSketch}, seeded from their recent
+ * searches the first time it is needed and evicted when the user goes idle. The global
+ * view is a ring of time buckets covering the trending window; each bucket is
+ * split into stripes by query hash so concurrent searches rarely share a lock.
+ */
+@Service
+public class TrendingQueryService {
+
+    private static final int STRIPES = 16;
+
+    private final SearchHistoryRepository searchHistoryRepository;
+    private final Cache<String, SpaceSavingSketch> userSketches;
+    private final int userCapacity;
+    private final Duration seedWindow;
+    private final int seedMaxSearches;
+    private final Bucket[] buckets;
+    private final long bucketMillis;
+
+    public TrendingQueryService(SearchHistoryRepository searchHistoryRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${trending.user.capacity:32}") int userCapacity,
+                                @Value("${trending.user.max-users:10000}") long maxUsers,
+                                @Value("${trending.user.idle:1h}") Duration userIdle,
+                                @Value("${trending.user.seed-window:30d}") Duration seedWindow,
+                                @Value("${trending.user.seed-max-searches:1000}") int seedMaxSearches,
+                                @Value("${trending.global.window:1h}") Duration window,
+                                @Value("${trending.global.buckets:12}") int bucketCount,
+                                @Value("${trending.global.capacity:1000}") int globalCapacity) {
+        this.searchHistoryRepository = searchHistoryRepository;
+        this.userCapacity = userCapacity;
+        this.seedWindow = seedWindow;
+        this.seedMaxSearches = seedMaxSearches;
+        this.userSketches = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(userIdle)
+                .build();
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(Math.max(1, globalCapacity / STRIPES));
+        }
+        meterRegistry.gauge("trending.user.sketches", userSketches, Cache::estimatedSize);
+    }
+
+    public void record(User user, String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        userSketch(user).offer(normalized, 1);
+
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        currentBucket(epoch).stripes[Math.floorMod(normalized.hashCode(), STRIPES)].offer(normalized, 1);
+    }
+
+    public List<Map<String, Object>> topQueries(User user, int limit) {
+        return userSketch(user).top(limit).stream()
+                .map(e -> Map.<String, Object>of("query", e.getKey(), "count", e.getValue()))
+                .toList();
+    }
+
+    /** Most searched queries across all users within the trending window. */
+    public List<Map<String, Object>> trending(int limit) {
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        Map<String, Long> totals = new HashMap<>();
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch < buckets.length) {
+                for (SpaceSavingSketch stripe : bucket.stripes) {
+                    stripe.addTo(totals);
+                }
+            }
+        }
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(e -> Map.<String, Object>of("query", e.getKey(), "count", e.getValue()))
+                .toList();
+    }
+
+    /** Drops the user's sketch, e.g. after their history was cleared. */
+    public void forget(User user) {
+        userSketches.invalidate(user.getId());
+    }
+
+    private SpaceSavingSketch userSketch(User user) {
+        return userSketches.get(user.getId(), id -> {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(userCapacity);
+            LocalDateTime since = LocalDateTime.now().minus(seedWindow);
+            for (Object[] row : searchHistoryRepository.findRecentTopQueriesByUser(
+                    user.getId(), since, seedMaxSearches, userCapacity)) {
+                sketch.offer(normalize((String) row[0]), ((Number) row[1]).longValue());
+            }
+            return sketch;
+        });
+    }
+
+    private Bucket currentBucket(long epoch) {
+        Bucket bucket = buckets[(int) (epoch % buckets.length)];
+        if (bucket.epoch != epoch) {
+            synchronized (bucket) {
+                if (bucket.epoch != epoch) {
+                    // The slot last held a bucket that has left the window
+                    for (SpaceSavingSketch stripe : bucket.stripes) {
+                        stripe.clear();
+                    }
+                    bucket.epoch = epoch;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Bucket {
+
+        final SpaceSavingSketch[] stripes = new SpaceSavingSketch[STRIPES];
+        volatile long epoch = -1;
+
+        Bucket(int stripeCapacity) {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new SpaceSavingSketch(stripeCapacity);
+            }
+        }
+    }
+}
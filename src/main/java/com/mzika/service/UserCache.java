@@ -0,0 +1,78 @@
+package com.mzika.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mzika.model.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of users by Spotify id, kept current by writing through every
+ * save made by {@link UserService}. The TTL only bounds how long a change made
+ * outside this process (another instance, manual SQL) can go unnoticed.
+ *
+ * <p>Saves are cached once their transaction has committed, so a rollback never
+ * leaves a user behind that the database does not have. Entries are private
+ * copies and every read hands out a fresh one, so a caller changing the user it
+ * got cannot change what other requests see.
+ */
+@Component
+public class UserCache {
+
+    private final Cache<String, User> users;
+
+    public UserCache(@Value("${users.cache.max-size:10000}") long maxSize,
+                     @Value("${users.cache.ttl:10m}") Duration ttl,
+                     MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /** Returns the cached user, loading it on a miss; unknown ids are not cached. */
+    public Optional<User> get(String spotifyId, Function<String, Optional<User>> loader) {
+        return Optional.ofNullable(users.get(spotifyId, id -> loader.apply(id).map(UserCache::copy).orElse(null)))
+                .map(UserCache::copy);
+    }
+
+    /** Caches the saved user once the surrounding transaction commits; returns it unchanged. */
+    public User put(User user) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            users.put(user.getSpotifyId(), copy(user));
+            return user;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.put(user.getSpotifyId(), copy(user));
+            }
+        });
+        return user;
+    }
+
+    private static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .spotifyId(user.getSpotifyId())
+                .email(user.getEmail())
+                .displayName(user.getDisplayName())
+                .name(user.getName())
+                .accessToken(user.getAccessToken())
+                .refreshToken(user.getRefreshToken())
+                .tokenExpiresAt(user.getTokenExpiresAt())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+    }
+}
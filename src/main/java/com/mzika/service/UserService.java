@@ -7,17 +7,44 @@ import com.mzika.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
+
+    private static final int REFRESH_QUERY_BATCH = 500;
+
     private final UserRepository userRepository;
     private final SpotifyService spotifyService;
+    private final AsyncTaskExecutor spotifyTaskExecutor;
+    private final UserCache userCache;
+
+    // At most one token refresh per user at a time; concurrent requests share it
+    private final Map<String, CompletableFuture<User>> refreshesInFlight = new ConcurrentHashMap<>();
+
+    // spotifyId -> last request time (epoch millis), for proactive refresh
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+    @Value("${users.token-refresh.lead:5m}")
+    private Duration refreshLead;
+
+    @Value("${users.token-refresh.active-window:30m}")
+    private Duration activeWindow;
 
     @Transactional
     public User createOrUpdateUser(SpotifyUserInfo spotifyUserInfo, String accessToken, String refreshToken)
@@ -44,12 +71,12 @@ public class UserService {
 
         user.setTokenExpiresAt(LocalDateTime.now().plusHours(1));
 
-        return  userRepository.save(user);
+        return userCache.put(userRepository.save(user));
     }
 
     public Optional<User> getUserBySpotifyId(String spotifyId)
     {
-        return userRepository.findBySpotifyId(spotifyId);
+        return userCache.get(spotifyId, userRepository::findBySpotifyId);
     }
 
     public boolean isTokenExpired(User user)
@@ -84,7 +111,7 @@ public class UserService {
                     tokenResponse.getExpiresIn() != null ? tokenResponse.getExpiresIn() : 3600
             ));
 
-            return userRepository.save(user);
+            return userCache.put(userRepository.save(user));
 
         } catch (Exception e) {
             log.error("Error refreshing token for user {}: {}", user.getSpotifyId(), e.getMessage());
@@ -93,15 +120,89 @@ public class UserService {
     }
 
     public User getValidUser(String spotifyId) {
-        User user = userRepository.findBySpotifyId(spotifyId)
+        User user = getUserBySpotifyId(spotifyId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        lastSeen.put(spotifyId, System.currentTimeMillis());
 
         // Auto-refresh if token is expired
         if (isTokenExpired(user)) {
             log.info("Token expired for user: {}, refreshing...", spotifyId);
-            user = refreshUserToken(user);
+            return awaitRefresh(refreshOnce(spotifyId));
+        }
+
+        // Still valid but close to expiry: refresh in the background, serve the current token
+        if (expiresWithin(user, refreshLead)) {
+            refreshOnce(spotifyId);
         }
 
         return user;
     }
+
+    /**
+     * Refreshes tokens of recently active users shortly before they expire, so
+     * requests almost never have to wait on accounts.spotify.com.
+     */
+    @Scheduled(fixedDelayString = "${users.token-refresh.interval:1m}")
+    public void refreshExpiringTokens() {
+        long cutoff = System.currentTimeMillis() - activeWindow.toMillis();
+        lastSeen.values().removeIf(seenAt -> seenAt < cutoff);
+
+        List<String> active = new ArrayList<>(lastSeen.keySet());
+        LocalDateTime threshold = LocalDateTime.now().plus(refreshLead);
+        for (int i = 0; i < active.size(); i += REFRESH_QUERY_BATCH) {
+            List<String> batch = active.subList(i, Math.min(i + REFRESH_QUERY_BATCH, active.size()));
+            userRepository.findBySpotifyIdInAndTokenExpiresAtBefore(batch, threshold)
+                    .forEach(user -> refreshOnce(user.getSpotifyId()));
+        }
+    }
+
+    /** Starts a refresh for the user, or joins the one already running. */
+    private CompletableFuture<User> refreshOnce(String spotifyId) {
+        CompletableFuture<User> refresh = new CompletableFuture<>();
+        CompletableFuture<User> inFlight = refreshesInFlight.putIfAbsent(spotifyId, refresh);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        try {
+            spotifyTaskExecutor.execute(() -> {
+                try {
+                    // Reload: a refresh that finished just before ours may have rotated the tokens
+                    User user = userRepository.findBySpotifyId(spotifyId)
+                            .orElseThrow(() -> new RuntimeException("User not found"));
+                    refresh.complete(expiresWithin(user, refreshLead) ? refreshUserToken(user) : user);
+                } catch (Throwable e) {
+                    refresh.completeExceptionally(e);
+                } finally {
+                    refreshesInFlight.remove(spotifyId, refresh);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshesInFlight.remove(spotifyId, refresh);
+            refresh.completeExceptionally(e);
+        }
+
+        refresh.whenComplete((user, e) -> {
+            if (e != null) {
+                log.warn("Token refresh failed for user {}: {}", spotifyId, e.getMessage());
+            }
+        });
+        return refresh;
+    }
+
+    private User awaitRefresh(CompletableFuture<User> refresh) {
+        try {
+            return refresh.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to refresh token", e.getCause());
+        }
+    }
+
+    private boolean expiresWithin(User user, Duration window) {
+        return user.getTokenExpiresAt() != null &&
+                user.getTokenExpiresAt().isBefore(LocalDateTime.now().plus(window));
+    }
 }
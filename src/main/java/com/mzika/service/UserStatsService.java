@@ -0,0 +1,82 @@
+package com.mzika.service;
+
+import com.mzika.model.entity.User;
+import com.mzika.model.entity.UserStats;
+import com.mzika.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-user counters maintained as searches and favorites are written, so reading
+ * them is a primary-key lookup instead of counting the user's whole history.
+ *
+ * <p>A missing row is backfilled from the source tables by whichever comes first,
+ * a read or a write. Every write changes the source rows before its counter, in the
+ * same transaction, and upserts: inserting the backfill, which already counts its
+ * own rows, or adding its delta to the row that exists. Concurrent first writes
+ * conflict on the primary key, so the loser waits for the winner's backfill to
+ * commit and then adds its delta; no write can miss the row and go uncounted.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    private static final String ADD_SEARCHES = """
+            INSERT INTO user_stats (user_id, total_searches, total_favorites, updated_at)
+            SELECT ?,
+                   (SELECT count(*) FROM search_history WHERE user_id = ?),
+                   (SELECT count(*) FROM favorite_tracks WHERE user_id = ?),
+                   now()
+            ON CONFLICT (user_id) DO UPDATE
+                SET total_searches = user_stats.total_searches + ?, updated_at = now()""";
+
+    // A missing row needs nothing: its backfill will count only the rows still there
+    private static final String SUBTRACT_SEARCHES = """
+            UPDATE user_stats SET total_searches = GREATEST(total_searches - ?, 0), updated_at = now()
+            WHERE user_id = ?""";
+
+    private final UserStatsRepository userStatsRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public UserStats getStats(User user) {
+        return userStatsRepository.findById(user.getId()).orElseGet(() -> {
+            userStatsRepository.insertIfAbsent(user.getId());
+            return userStatsRepository.findById(user.getId()).orElseThrow();
+        });
+    }
+
+    /** Adds flushed search counts, keyed by user id; call after inserting the searches. */
+    public void recordSearches(Map<String, Integer> searchesByUser) {
+        // Rows are locked in id order so concurrent batches cannot deadlock
+        List<Object[]> rows = new TreeMap<>(searchesByUser).entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getKey(), e.getKey(), e.getValue()})
+                .toList();
+        jdbcTemplate.batchUpdate(ADD_SEARCHES, rows);
+    }
+
+    /** Subtracts searches removed by retention, keyed by user id; call in the deleting transaction. */
+    public void searchesExpired(Map<String, Long> searchesByUser) {
+        // Same lock order as recordSearches
+        List<Object[]> rows = new TreeMap<>(searchesByUser).entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate(SUBTRACT_SEARCHES, rows);
+    }
+
+    @Transactional
+    public void favoritesChanged(User user, long delta) {
+        userStatsRepository.addFavorites(user.getId(), delta);
+    }
+
+    @Transactional
+    public void searchesCleared(User user) {
+        userStatsRepository.resetSearches(user.getId());
+    }
+}
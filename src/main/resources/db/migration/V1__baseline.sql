@@ -0,0 +1,89 @@
+-- Baseline of the schema previously generated by Hibernate (ddl-auto: update).
+-- Every statement is idempotent so it also runs cleanly against those databases.
+
+CREATE TABLE IF NOT EXISTS users (
+    id               varchar(255) NOT NULL PRIMARY KEY,
+    spotify_id       varchar(255) NOT NULL UNIQUE,
+    email            varchar(255) UNIQUE,
+    display_name     varchar(255),
+    name             varchar(255),
+    access_token     varchar(1000),
+    refresh_token    varchar(1000),
+    token_expires_at timestamp(6),
+    created_at       timestamp(6),
+    updated_at       timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS favorite_tracks (
+    id              varchar(255) NOT NULL PRIMARY KEY,
+    user_id         varchar(255) NOT NULL REFERENCES users (id),
+    track_id        varchar(255) NOT NULL,
+    track_name      varchar(255) NOT NULL,
+    artist_name     varchar(255) NOT NULL,
+    album_name      varchar(255),
+    album_image_url varchar(255),
+    duration_ms     integer,
+    popularity      integer,
+    explicit        boolean,
+    saved_at        timestamp(6),
+    UNIQUE (user_id, track_id)
+);
+
+CREATE TABLE IF NOT EXISTS search_history (
+    id            varchar(255) NOT NULL PRIMARY KEY,
+    user_id       varchar(255) NOT NULL REFERENCES users (id),
+    query         varchar(255) NOT NULL,
+    results_count integer,
+    searched_at   timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id         varchar(255) NOT NULL PRIMARY KEY,
+    total_searches  bigint       NOT NULL,
+    total_favorites bigint       NOT NULL,
+    updated_at      timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS catalog_artists (
+    id         varchar(255) NOT NULL PRIMARY KEY,
+    name       varchar(255),
+    uri        varchar(255),
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS catalog_albums (
+    id           varchar(255) NOT NULL PRIMARY KEY,
+    name         varchar(255),
+    uri          varchar(255),
+    release_date varchar(255),
+    total_tracks integer,
+    updated_at   timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS catalog_album_images (
+    album_id varchar(255) NOT NULL REFERENCES catalog_albums (id),
+    position integer      NOT NULL,
+    url      varchar(1000),
+    width    integer,
+    height   integer,
+    PRIMARY KEY (album_id, position)
+);
+
+CREATE TABLE IF NOT EXISTS catalog_tracks (
+    id          varchar(255) NOT NULL PRIMARY KEY,
+    name        varchar(255),
+    uri         varchar(255),
+    duration_ms integer,
+    explicit    boolean,
+    popularity  integer,
+    preview_url varchar(1000),
+    album_id    varchar(255) REFERENCES catalog_albums (id),
+    updated_at  timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS catalog_track_artists (
+    track_id  varchar(255) NOT NULL REFERENCES catalog_tracks (id),
+    position  integer      NOT NULL,
+    artist_id varchar(255) NOT NULL REFERENCES catalog_artists (id),
+    PRIMARY KEY (track_id, position)
+);
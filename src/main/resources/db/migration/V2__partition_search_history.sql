@@ -0,0 +1,44 @@
+-- Range-partition search_history by month so retention can drop whole partitions
+-- and per-user reads only touch recent ones. Partitions for existing months are
+-- created before the copy so no historical row lands in the default partition.
+
+ALTER TABLE search_history RENAME TO search_history_legacy;
+
+CREATE TABLE search_history (
+    id            varchar(255) NOT NULL,
+    user_id       varchar(255) NOT NULL REFERENCES users (id),
+    query         varchar(255) NOT NULL,
+    results_count integer,
+    searched_at   timestamp(6) NOT NULL,
+    -- The legacy table keeps the search_history_pkey name until it is dropped
+    CONSTRAINT search_history_part_pkey PRIMARY KEY (id, searched_at)
+) PARTITION BY RANGE (searched_at);
+
+CREATE TABLE search_history_default PARTITION OF search_history DEFAULT;
+
+DO $$
+DECLARE
+    partition_month date;
+BEGIN
+    FOR partition_month IN
+        SELECT generate_series(
+                       date_trunc('month', COALESCE(min(searched_at), localtimestamp)),
+                       date_trunc('month', localtimestamp) + interval '2 months',
+                       interval '1 month')::date
+        FROM search_history_legacy
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF search_history FOR VALUES FROM (%L) TO (%L)',
+                       'search_history_' || to_char(partition_month, 'YYYY_MM'),
+                       partition_month, (partition_month + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+-- Serves "recent searches for a user" and top queries without visiting the heap
+CREATE INDEX idx_search_history_user_recent
+    ON search_history (user_id, searched_at DESC) INCLUDE (query, results_count);
+
+INSERT INTO search_history (id, user_id, query, results_count, searched_at)
+SELECT id, user_id, query, results_count, COALESCE(searched_at, localtimestamp)
+FROM search_history_legacy;
+
+DROP TABLE search_history_legacy;
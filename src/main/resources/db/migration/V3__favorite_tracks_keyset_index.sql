@@ -0,0 +1,14 @@
+-- Favorites are paged newest first by (saved_at, id), which needs saved_at on every
+-- row: a NULL sorts first and cannot be encoded in a cursor. Rows saved before the
+-- column was filled in are placed just behind the user's oldest known favorite.
+UPDATE favorite_tracks f
+SET saved_at = COALESCE(
+        (SELECT min(o.saved_at) - interval '1 second' FROM favorite_tracks o WHERE o.user_id = f.user_id),
+        localtimestamp)
+WHERE f.saved_at IS NULL;
+
+ALTER TABLE favorite_tracks ALTER COLUMN saved_at SET NOT NULL;
+
+-- Matches the (saved_at, id) keyset used to page /api/favorites newest first
+CREATE INDEX IF NOT EXISTS idx_favorite_tracks_user_saved
+    ON favorite_tracks (user_id, saved_at DESC, id DESC);
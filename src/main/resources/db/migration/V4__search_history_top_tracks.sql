@@ -0,0 +1,3 @@
+-- Ids of the first results of each search, resolved through the catalog when
+-- history is read. Added on the partitioned parent, so every partition gets it.
+ALTER TABLE search_history ADD COLUMN IF NOT EXISTS top_track_ids varchar(255)[];
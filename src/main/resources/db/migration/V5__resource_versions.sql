@@ -0,0 +1,11 @@
+-- Versions behind the ETags of per-user resources, shared by every instance.
+-- Values come from one sequence, so a tag is never reissued for different data.
+-- The row with user_id '*' is a global version that invalidates every tag at once.
+CREATE SEQUENCE IF NOT EXISTS resource_version_seq;
+
+CREATE TABLE IF NOT EXISTS resource_versions (
+    user_id  varchar(255) NOT NULL,
+    resource varchar(32)  NOT NULL,
+    version  bigint       NOT NULL,
+    PRIMARY KEY (user_id, resource)
+);
@@ -0,0 +1,19 @@
+package com.mzika;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/** Postgres for tests that need the real schema; Flyway migrates it on startup. */
+@TestConfiguration(proxyBeanMethods = false)
+public class TestcontainersConfiguration {
+
+	@Bean
+	@ServiceConnection
+	PostgreSQLContainer postgresContainer() {
+		// Same major version as docker-compose.yml
+		return new PostgreSQLContainer(DockerImageName.parse("postgres:15-alpine"));
+	}
+}
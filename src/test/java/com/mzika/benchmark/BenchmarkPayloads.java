@@ -0,0 +1,97 @@
+package com.mzika.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Spotify-shaped payloads for the benchmarks, with artists and albums recurring across tracks. */
+final class BenchmarkPayloads {
+
+    private BenchmarkPayloads() {
+    }
+
+    /** A {@code /search?type=track} response body with {@code count} tracks. */
+    static Map<String, Object> searchResponse(int count) {
+        return searchResponse(count, 0);
+    }
+
+    static Map<String, Object> searchResponse(int count, int offset) {
+        List<Map<String, Object>> items = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            items.add(track(i));
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("href", "https://api.spotify.com/v1/search?query=benchmark&type=track");
+        page.put("items", items);
+        page.put("limit", count);
+        page.put("next", null);
+        page.put("offset", offset);
+        page.put("previous", null);
+        page.put("total", 1000);
+        return Map.of("tracks", page);
+    }
+
+    private static Map<String, Object> track(int i) {
+        int artist = i % 7;
+        int album = i % 11;
+
+        Map<String, Object> track = new LinkedHashMap<>();
+        track.put("album", album(album, artist));
+        track.put("artists", List.of(artist(artist), artist((artist + 3) % 7)));
+        track.put("available_markets", List.of("DE", "FR", "GB", "KE", "TZ", "US"));
+        track.put("disc_number", 1);
+        track.put("duration_ms", 180_000 + i * 997);
+        track.put("explicit", i % 5 == 0);
+        track.put("external_ids", Map.of("isrc", "USRC1" + String.format("%07d", i)));
+        track.put("external_urls", Map.of("spotify", "https://open.spotify.com/track/track" + i));
+        track.put("href", "https://api.spotify.com/v1/tracks/track" + i);
+        track.put("id", "track" + i);
+        track.put("is_local", false);
+        track.put("name", "Track number " + i);
+        track.put("popularity", 40 + i % 60);
+        track.put("preview_url", i % 3 == 0 ? null : "https://p.scdn.co/mp3-preview/track" + i);
+        track.put("track_number", i % 12 + 1);
+        track.put("type", "track");
+        track.put("uri", "spotify:track:track" + i);
+        return track;
+    }
+
+    private static Map<String, Object> album(int album, int artist) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("album_type", "album");
+        node.put("artists", List.of(artist(artist)));
+        node.put("external_urls", Map.of("spotify", "https://open.spotify.com/album/album" + album));
+        node.put("href", "https://api.spotify.com/v1/albums/album" + album);
+        node.put("id", "album" + album);
+        node.put("images", List.of(
+                image(album, 640), image(album, 300), image(album, 64)));
+        node.put("name", "Album number " + album);
+        node.put("release_date", "20" + (10 + album) + "-05-0" + (album % 9 + 1));
+        node.put("release_date_precision", "day");
+        node.put("total_tracks", 10 + album);
+        node.put("type", "album");
+        node.put("uri", "spotify:album:album" + album);
+        return node;
+    }
+
+    private static Map<String, Object> artist(int artist) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("external_urls", Map.of("spotify", "https://open.spotify.com/artist/artist" + artist));
+        node.put("href", "https://api.spotify.com/v1/artists/artist" + artist);
+        node.put("id", "artist" + artist);
+        node.put("name", "Artist number " + artist);
+        node.put("type", "artist");
+        node.put("uri", "spotify:artist:artist" + artist);
+        return node;
+    }
+
+    private static Map<String, Object> image(int album, int size) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("height", size);
+        node.put("url", "https://i.scdn.co/image/album" + album + "x" + size);
+        node.put("width", size);
+        return node;
+    }
+}
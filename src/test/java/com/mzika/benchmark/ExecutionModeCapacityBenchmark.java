@@ -0,0 +1,86 @@
+package com.mzika.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity of the two execution modes for request handling that mostly waits on
+ * Spotify: Tomcat's default 200-thread pool against one virtual thread per request.
+ * Each operation is a burst of {@code concurrency} requests that each block for
+ * {@code latencyMs}; the score is the time to drain the burst.
+ *
+ * <p>The virtual mode needs a Java 21 runtime ({@code -Pjava21}, or the Docker image
+ * built with {@code JAVA_VERSION=21}):
+ * <pre>
+ * ./mvnw -Pjava21 test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main \
+ *     ExecutionModeCapacityBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeCapacityBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    @Param({"200", "1000", "4000"})
+    int concurrency;
+
+    @Param({"50"})
+    int latencyMs;
+
+    private Executor executor;
+    private ExecutorService platformPool;
+
+    @Setup
+    public void setUp() {
+        if ("virtual".equals(mode)) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("The virtual mode needs Java 21, running on "
+                        + Runtime.version().feature());
+            }
+            executor = new VirtualThreadTaskExecutor("capacity-");
+        } else {
+            platformPool = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+            executor = platformPool;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                try {
+                    // Stands in for a blocking Spotify round trip
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
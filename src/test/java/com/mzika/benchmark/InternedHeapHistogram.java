@@ -0,0 +1,69 @@
+package com.mzika.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.service.SpotifyResponseParser;
+import com.mzika.service.TrackMetadataInterner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Heap histogram of a search cache full of parsed pages, with and without metadata
+ * interning. Not a JMH benchmark: it holds {@code pages} results of 50 tracks, as
+ * the search cache would, then prints the live-object histogram rows for the DTOs
+ * and the strings, boxes and lists behind them. Run once per mode, each in its own JVM:
+ * <pre>
+ * ./mvnw test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.mzika.benchmark.InternedHeapHistogram interned 10000
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.mzika.benchmark.InternedHeapHistogram plain 10000
+ * </pre>
+ */
+public final class InternedHeapHistogram {
+
+    private static final int TRACKS_PER_PAGE = 50;
+    private static final Pattern ROWS =
+            Pattern.compile("com\\.mzika|java\\.lang\\.(String|Integer|Boolean) |\\[B |java\\.util\\.(ArrayList|ImmutableCollections)|Total");
+
+    private InternedHeapHistogram() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean interned = args.length == 0 || "interned".equals(args[0]);
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        // Size-0 tables return every value as given, so nothing is shared
+        long tableSize = interned ? 50_000 : 0;
+        SpotifyResponseParser parser = new SpotifyResponseParser(
+                new TrackMetadataInterner(tableSize, tableSize, tableSize, new SimpleMeterRegistry()));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        List<SearchResultDTO> cached = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            // Tracks differ from page to page; artists and albums recur as in real results
+            byte[] payload = objectMapper.writeValueAsBytes(
+                    BenchmarkPayloads.searchResponse(TRACKS_PER_PAGE, page * TRACKS_PER_PAGE));
+            cached.add(parser.parseSearchResult(new ByteArrayInputStream(payload)));
+        }
+
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                "gcClassHistogram",
+                new Object[]{new String[0]},
+                new String[]{String[].class.getName()});
+
+        System.out.printf("%s, %d pages of %d tracks%n", interned ? "interned" : "plain", pages, TRACKS_PER_PAGE);
+        histogram.lines()
+                .filter(line -> ROWS.matcher(line).find() || line.contains("#instances"))
+                .forEach(System.out::println);
+        // Keep the pages reachable until the histogram has been taken
+        System.out.println("Pages held: " + cached.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.mzika.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
+import com.mzika.service.SearchResponseEncoder;
+import com.mzika.service.SpotifyResponseParser;
+import com.mzika.service.TrackMetadataInterner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU per search response on a cache hit: copying the pre-encoded bytes against
+ * flagging a copy of the result and serializing it, as the endpoint did before.
+ *
+ * <pre>
+ * ./mvnw test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main \
+ *     SearchResponseEncoderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResponseEncoderBenchmark {
+
+    @Param({"20", "50"})
+    int tracks;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private SearchResponseEncoder encoder;
+    private SearchResultDTO result;
+    private Set<String> favorites;
+
+    @Setup
+    public void setUp() throws IOException {
+        SpotifyResponseParser parser = new SpotifyResponseParser(
+                new TrackMetadataInterner(50_000, 50_000, 50_000, new SimpleMeterRegistry()));
+        byte[] payload = new ObjectMapper().writeValueAsBytes(BenchmarkPayloads.searchResponse(tracks));
+        result = parser.parseSearchResult(new ByteArrayInputStream(payload));
+
+        // Every third track is a favorite
+        favorites = new HashSet<>();
+        for (int i = 0; i < tracks; i += 3) {
+            favorites.add("track" + i);
+        }
+
+        encoder = new SearchResponseEncoder(jsonMapper, new SimpleMeterRegistry(), 10_000);
+        encoder.encode(result, favorites);
+    }
+
+    @Benchmark
+    public byte[] encodedHit() {
+        return encoder.encode(result, favorites);
+    }
+
+    @Benchmark
+    public byte[] serialized() {
+        List<TrackDTO> flagged = result.getTracks().stream()
+                .map(t -> t.toBuilder().isFavorite(favorites.contains(t.getId())).build())
+                .toList();
+        return jsonMapper.writeValueAsBytes(result.toBuilder().tracks(flagged).build());
+    }
+}
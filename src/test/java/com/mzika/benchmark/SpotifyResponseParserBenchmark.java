@@ -0,0 +1,111 @@
+package com.mzika.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mzika.model.dto.AlbumDTO;
+import com.mzika.model.dto.ArtistDTO;
+import com.mzika.model.dto.ImageDTO;
+import com.mzika.model.dto.SearchResultDTO;
+import com.mzika.model.dto.TrackDTO;
+import com.mzika.service.SpotifyResponseParser;
+import com.mzika.service.TrackMetadataInterner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-streaming search decoding against the JsonNode tree mapping it replaced.
+ *
+ * <pre>
+ * ./mvnw test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main \
+ *     SpotifyResponseParserBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpotifyResponseParserBenchmark {
+
+    @Param({"20", "50"})
+    int tracks;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SpotifyResponseParser parser;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new SpotifyResponseParser(new TrackMetadataInterner(50_000, 50_000, 50_000, new SimpleMeterRegistry()));
+        payload = objectMapper.writeValueAsBytes(BenchmarkPayloads.searchResponse(tracks));
+    }
+
+    @Benchmark
+    public SearchResultDTO streaming() throws IOException {
+        return parser.parseSearchResult(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public SearchResultDTO tree() throws IOException {
+        JsonNode tracksNode = objectMapper.readTree(new ByteArrayInputStream(payload)).path("tracks");
+        List<TrackDTO> parsed = new ArrayList<>();
+        for (JsonNode trackNode : tracksNode.path("items")) {
+            parsed.add(treeTrack(trackNode));
+        }
+        return SearchResultDTO.builder()
+                .tracks(parsed)
+                .total(tracksNode.path("total").asInt())
+                .limit(tracksNode.path("limit").asInt())
+                .offset(tracksNode.path("offset").asInt())
+                .build();
+    }
+
+    // The mapping SpotifyService used before the streaming parser
+    private static TrackDTO treeTrack(JsonNode trackNode) {
+        List<ArtistDTO> artists = new ArrayList<>();
+        for (JsonNode artistNode : trackNode.path("artists")) {
+            artists.add(ArtistDTO.builder()
+                    .id(artistNode.path("id").asText())
+                    .name(artistNode.path("name").asText())
+                    .uri(artistNode.path("uri").asText())
+                    .build());
+        }
+
+        JsonNode albumNode = trackNode.path("album");
+        List<ImageDTO> images = new ArrayList<>();
+        for (JsonNode imageNode : albumNode.path("images")) {
+            images.add(ImageDTO.builder()
+                    .height(imageNode.path("height").asInt())
+                    .width(imageNode.path("width").asInt())
+                    .url(imageNode.path("url").asText())
+                    .build());
+        }
+
+        return TrackDTO.builder()
+                .id(trackNode.path("id").asText())
+                .name(trackNode.path("name").asText())
+                .uri(trackNode.path("uri").asText())
+                .durationMs(trackNode.path("duration_ms").asInt())
+                .explicit(trackNode.path("explicit").asBoolean())
+                .popularity(trackNode.path("popularity").asInt())
+                .previewUrl(trackNode.path("preview_url").asText(null))
+                .artists(artists)
+                .album(AlbumDTO.builder()
+                        .id(albumNode.path("id").asText())
+                        .name(albumNode.path("name").asText())
+                        .uri(albumNode.path("uri").asText())
+                        .releaseDate(albumNode.path("release_date").asText())
+                        .totalTracks(albumNode.path("total_tracks").asInt())
+                        .images(images)
+                        .build())
+                .build();
+    }
+}
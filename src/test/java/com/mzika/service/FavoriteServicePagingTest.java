@@ -0,0 +1,109 @@
+package com.mzika.service;
+
+import com.mzika.TestcontainersConfiguration;
+import com.mzika.model.dto.FavoriteTrackDTO;
+import com.mzika.model.dto.FavoritesPageDTO;
+import com.mzika.model.dto.TrackDTO;
+import com.mzika.model.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class FavoriteServicePagingTest {
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .id(UUID.randomUUID().toString())
+                .spotifyId("paging-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate.update("INSERT INTO users (id, spotify_id) VALUES (?, ?)", user.getId(), user.getSpotifyId());
+    }
+
+    @Test
+    void pagesCoverEveryFavoriteOnceNewestFirst() {
+        List<TrackDTO> tracks = IntStream.range(0, 25)
+                .mapToObj(i -> TrackDTO.builder().id("track" + i).name("Track " + i).build())
+                .toList();
+        favoriteService.addFavorites(user, tracks);
+
+        List<String> seen = pageThrough(10);
+
+        // Earlier list entries are saved as newer, so the input order is kept
+        assertThat(seen).containsExactlyElementsOf(tracks.stream().map(TrackDTO::getId).toList());
+    }
+
+    @Test
+    void rowsSharingATimestampAreOrderedByIdAcrossPages() {
+        Timestamp savedAt = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < 7; i++) {
+            insertFavorite("tied" + i, savedAt);
+        }
+
+        List<String> seen = pageThrough(3);
+
+        assertThat(seen).hasSize(7).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        favoriteService.addFavorites(user, List.of(TrackDTO.builder().id("only").name("Only").build()));
+
+        FavoritesPageDTO page = favoriteService.getFavoritesPage(user, null, 1);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void favoritesCannotBeSavedWithoutATimestamp() {
+        // A NULL saved_at would sort first and end pagination without a cursor
+        assertThatThrownBy(() -> insertFavorite("undated", null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private List<String> pageThrough(int limit) {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            FavoritesPageDTO page = favoriteService.getFavoritesPage(user, cursor, limit);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(limit);
+            page.getItems().stream().map(FavoriteTrackDTO::getTrackId).forEach(seen::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private void insertFavorite(String trackId, Timestamp savedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO favorite_tracks (id, user_id, track_id, track_name, artist_name, saved_at)
+                VALUES (?, ?, ?, 'Track', 'Artist', ?)""",
+                UUID.randomUUID().toString(), user.getId(), trackId, savedAt);
+    }
+}
@@ -0,0 +1,129 @@
+package com.mzika.service;
+
+import com.mzika.model.dto.AlbumDTO;
+import com.mzika.model.dto.ArtistDTO;
+import com.mzika.model.dto.ImageDTO;
+import com.mzika.model.dto.TrackDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapTrackStoreTest {
+
+    private OffHeapTrackStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapTrackStore(DataSize.ofKilobytes(4), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void roundTripsEveryField() {
+        TrackDTO track = TrackDTO.builder()
+                .id("track1")
+                .name("Name")
+                .uri("spotify:track:track1")
+                .durationMs(180_000)
+                .explicit(true)
+                .popularity(42)
+                .artists(List.of(ArtistDTO.builder().id("artist1").name("Artist").uri("spotify:artist:artist1").build()))
+                .album(AlbumDTO.builder()
+                        .id("album1")
+                        .name("Album")
+                        .releaseDate("2020-01-01")
+                        .totalTracks(12)
+                        .images(List.of(ImageDTO.builder().url("https://i.scdn.co/image/a").width(64).height(64).build()))
+                        .build())
+                .build();
+
+        store.put(track);
+
+        assertThat(store.get("track1")).isEqualTo(track);
+    }
+
+    @Test
+    void unknownScalarsStayNull() {
+        store.put(track("track1", "Name"));
+
+        TrackDTO stored = store.get("track1");
+        assertThat(stored.getDurationMs()).isNull();
+        assertThat(stored.getExplicit()).isNull();
+        assertThat(stored.getPopularity()).isNull();
+    }
+
+    @Test
+    void idsWithTheSameHashCodeAreKeptApart() {
+        // "Aa" and "BB" share String.hashCode, so they land on the same probe sequence
+        store.put(track("Aa", "first"));
+        store.put(track("BB", "second"));
+
+        assertThat(store.get("Aa").getName()).isEqualTo("first");
+        assertThat(store.get("BB").getName()).isEqualTo("second");
+        assertThat(store.get("Ab")).isNull();
+    }
+
+    @Test
+    void compactionKeepsTheLatestVersionOfEveryLiveTrack() {
+        // Rewrites append far more than the buffer holds; only superseded records are reclaimed
+        for (int version = 0; version < 200; version++) {
+            for (int i = 0; i < 10; i++) {
+                store.put(track("track" + i, "version " + version));
+            }
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(store.get("track" + i).getName()).isEqualTo("version 199");
+        }
+    }
+
+    @Test
+    void compactionMovesRecordsWrittenInAnyOrder() {
+        for (int i = 0; i < 20; i++) {
+            store.put(track("track" + i, "v0"));
+        }
+        // Supersede every other track so live records are interleaved with dead ones
+        for (int round = 1; round < 60; round++) {
+            for (int i = 0; i < 20; i += 2) {
+                store.put(track("track" + i, "v" + round));
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(store.get("track" + i).getName()).isEqualTo(i % 2 == 0 ? "v59" : "v0");
+        }
+    }
+
+    @Test
+    void startsOverWhenLiveTracksNoLongerFit() {
+        for (int i = 0; i < 1000; i++) {
+            store.put(track("track" + i, "name " + i));
+        }
+
+        assertThat(store.get("track0")).isNull();
+        assertThat(store.get("track999").getName()).isEqualTo("name 999");
+    }
+
+    @Test
+    void oversizedTracksAreNotStored() {
+        store.put(track("huge", "x".repeat(2000)));
+
+        assertThat(store.get("huge")).isNull();
+    }
+
+    @Test
+    void stringsTheRecordFormatCannotHoldAreNotStored() {
+        // writeUTF is limited to 64KB per string
+        store.put(track("long", "x".repeat(70_000)));
+
+        assertThat(store.get("long")).isNull();
+    }
+
+    private static TrackDTO track(String id, String name) {
+        return TrackDTO.builder().id(id).name(name).artists(List.of()).build();
+    }
+}
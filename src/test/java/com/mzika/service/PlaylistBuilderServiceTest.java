@@ -0,0 +1,146 @@
+package com.mzika.service;
+
+import com.mzika.exception.SpotifyUnavailableException;
+import com.mzika.model.dto.PlaylistBuildResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlaylistBuilderServiceTest {
+
+    private static final String PLAYLIST = "playlist";
+    private static final String TOKEN = "token";
+
+    @Mock
+    private SpotifyService spotifyService;
+
+    private PlaylistBuilderService builder;
+
+    @BeforeEach
+    void setUp() {
+        builder = new PlaylistBuilderService(spotifyService);
+        ReflectionTestUtils.setField(builder, "maxAttempts", 3);
+        // The body records the position it was prepared for
+        lenient().when(spotifyService.addTracksBody(anyList(), anyInt()))
+                .thenAnswer(invocation -> "at " + invocation.getArgument(1));
+    }
+
+    @Test
+    void sendsChunksInOrderAtExplicitPositions() {
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(250), TOKEN);
+
+        InOrder order = inOrder(spotifyService);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 100", 100, TOKEN);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 200", 50, TOKEN);
+        assertThat(result.getTracksAdded()).isEqualTo(250);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getFailedChunks()).isEmpty();
+    }
+
+    @Test
+    void rejectedChunkIsReportedOnceAndLaterChunksTakeItsPosition() {
+        doThrow(new RuntimeException("Failed to add tracks", new HttpClientErrorException(HttpStatus.BAD_REQUEST)))
+                .when(spotifyService).addTracksToPlaylist(eq(PLAYLIST), eq("at 100"), eq(100), eq(TOKEN));
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(250), TOKEN);
+
+        InOrder order = inOrder(spotifyService);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 100", 100, TOKEN);
+        order.verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 100", 50, TOKEN);
+        verify(spotifyService, never()).getPlaylistTrackCount(any(), any());
+        assertThat(result.getTracksAdded()).isEqualTo(150);
+        assertThat(result.getFailedChunks()).containsExactly(1);
+    }
+
+    @Test
+    void refusedChunkIsResentWithoutCheckingThePlaylist() {
+        doThrow(new SpotifyUnavailableException("circuit open", Duration.ofSeconds(1)))
+                .doNothing()
+                .when(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(100), TOKEN);
+
+        verify(spotifyService, times(2)).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        verify(spotifyService, never()).getPlaylistTrackCount(any(), any());
+        assertThat(result.getTracksAdded()).isEqualTo(100);
+        assertThat(result.getFailedChunks()).isEmpty();
+    }
+
+    @Test
+    void unansweredChunkThatLandedIsNotResent() {
+        doThrow(new RuntimeException("Failed to add tracks", new ResourceAccessException("timed out")))
+                .when(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        when(spotifyService.getPlaylistTrackCount(PLAYLIST, TOKEN)).thenReturn(100);
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(150), TOKEN);
+
+        verify(spotifyService, times(1)).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 100", 50, TOKEN);
+        assertThat(result.getTracksAdded()).isEqualTo(150);
+        assertThat(result.getFailedChunks()).isEmpty();
+    }
+
+    @Test
+    void unansweredChunkThatDidNotLandIsResent() {
+        doThrow(new RuntimeException("Failed to add tracks", new ResourceAccessException("timed out")))
+                .doNothing()
+                .when(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        when(spotifyService.getPlaylistTrackCount(PLAYLIST, TOKEN)).thenReturn(0);
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(100), TOKEN);
+
+        verify(spotifyService, times(2)).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        assertThat(result.getTracksAdded()).isEqualTo(100);
+        assertThat(result.getFailedChunks()).isEmpty();
+    }
+
+    @Test
+    void chunkWithUnknownOutcomeStopsTheBuild() {
+        doThrow(new RuntimeException("Failed to add tracks", new ResourceAccessException("timed out")))
+                .when(spotifyService).addTracksToPlaylist(PLAYLIST, "at 100", 100, TOKEN);
+        when(spotifyService.getPlaylistTrackCount(PLAYLIST, TOKEN))
+                .thenThrow(new RuntimeException("Failed to read playlist"));
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(300), TOKEN);
+
+        verify(spotifyService, times(1)).addTracksToPlaylist(PLAYLIST, "at 100", 100, TOKEN);
+        verify(spotifyService, never()).addTracksToPlaylist(eq(PLAYLIST), eq("at 200"), anyInt(), eq(TOKEN));
+        assertThat(result.getTracksAdded()).isEqualTo(100);
+        assertThat(result.getFailedChunks()).containsExactly(1, 2);
+    }
+
+    @Test
+    void chunkIsGivenUpAfterMaxAttempts() {
+        doThrow(new SpotifyUnavailableException("circuit open", Duration.ofSeconds(1)))
+                .when(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+
+        PlaylistBuildResultDTO result = builder.addTracks(PLAYLIST, uris(150), TOKEN);
+
+        verify(spotifyService, times(3)).addTracksToPlaylist(PLAYLIST, "at 0", 100, TOKEN);
+        verify(spotifyService).addTracksToPlaylist(PLAYLIST, "at 0", 50, TOKEN);
+        assertThat(result.getTracksAdded()).isEqualTo(50);
+        assertThat(result.getFailedChunks()).containsExactly(0);
+    }
+
+    private static List<String> uris(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "spotify:track:" + i).toList();
+    }
+}
@@ -0,0 +1,172 @@
+package com.mzika.service;
+
+import com.mzika.TestcontainersConfiguration;
+import com.mzika.model.entity.User;
+import com.mzika.model.entity.UserStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class UserStatsServiceTest {
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private SearchHistoryRetention searchHistoryRetention;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        user = User.builder()
+                .id(UUID.randomUUID().toString())
+                .spotifyId("stats-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate.update("INSERT INTO users (id, spotify_id) VALUES (?, ?)", user.getId(), user.getSpotifyId());
+    }
+
+    @Test
+    void firstWriteBackfillsTheCountersIncludingItself() {
+        insertFavorite();
+        insertSearch();
+        transactionTemplate.executeWithoutResult(status -> {
+            insertFavorite();
+            userStatsService.favoritesChanged(user, 1);
+        });
+
+        UserStats stats = userStatsService.getStats(user);
+        assertThat(stats.getTotalFavorites()).isEqualTo(2);
+        assertThat(stats.getTotalSearches()).isEqualTo(1);
+    }
+
+    @Test
+    void writeDuringAnUncommittedBackfillIsCounted() throws Exception {
+        CountDownLatch backfilled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // A first read backfills the row and holds its transaction open
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    userStatsService.getStats(user);
+                    backfilled.countDown();
+                    await(release);
+                }));
+        assertThat(backfilled.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Neither sees the other's uncommitted rows; the writer must wait and add its delta
+        CompletableFuture<Void> writers = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    insertFavorite();
+                    userStatsService.favoritesChanged(user, 1);
+                    insertSearch();
+                    userStatsService.recordSearches(Map.of(user.getId(), 1));
+                }));
+        Thread.sleep(200);
+        release.countDown();
+
+        reader.get(10, TimeUnit.SECONDS);
+        writers.get(10, TimeUnit.SECONDS);
+
+        UserStats stats = userStatsService.getStats(user);
+        assertThat(stats.getTotalFavorites()).isEqualTo(1);
+        assertThat(stats.getTotalSearches()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentFirstWritesAreAllCounted() {
+        int writers = 8;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[writers];
+        for (int i = 0; i < writers; i++) {
+            futures[i] = CompletableFuture.runAsync(() ->
+                    transactionTemplate.executeWithoutResult(status -> {
+                        insertFavorite();
+                        userStatsService.favoritesChanged(user, 1);
+                    }));
+        }
+        CompletableFuture.allOf(futures).join();
+
+        assertThat(userStatsService.getStats(user).getTotalFavorites()).isEqualTo(writers);
+    }
+
+    @Test
+    void removalsKeepTheCounterInStepWithTheSourceRows() {
+        String trackId = insertFavorite();
+        userStatsService.getStats(user);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM favorite_tracks WHERE user_id = ? AND track_id = ?",
+                    user.getId(), trackId);
+            userStatsService.favoritesChanged(user, -1);
+        });
+
+        assertThat(userStatsService.getStats(user).getTotalFavorites()).isZero();
+    }
+
+    @Test
+    void expiredSearchesAreSubtracted() {
+        // No monthly partition that old exists, so the row sits in the default partition
+        insertSearch(LocalDateTime.now().minusYears(5));
+        insertSearch();
+        assertThat(userStatsService.getStats(user).getTotalSearches()).isEqualTo(2);
+
+        searchHistoryRetention.maintainPartitions();
+
+        assertThat(userStatsService.getStats(user).getTotalSearches()).isEqualTo(1);
+    }
+
+    private String insertFavorite() {
+        String trackId = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                INSERT INTO favorite_tracks (id, user_id, track_id, track_name, artist_name, saved_at)
+                VALUES (?, ?, ?, 'Track', 'Artist', now())""",
+                UUID.randomUUID().toString(), user.getId(), trackId);
+        return trackId;
+    }
+
+    private void insertSearch() {
+        insertSearch(LocalDateTime.now());
+    }
+
+    private void insertSearch(LocalDateTime searchedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO search_history (id, user_id, query, results_count, searched_at)
+                VALUES (?, ?, 'query', 1, ?)""",
+                UUID.randomUUID().toString(), user.getId(), Timestamp.valueOf(searchedAt));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}